@@ -0,0 +1,44 @@
+package com.example.redditclone.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * MySQL has no sequences, so Hibernate keeps the pooled post and comment ids in single-row tables.
+ * Rows written while the ids were still auto-increment are not known to those tables; before anything
+ * is inserted, each one is moved past the largest existing id plus one allocation block.
+ */
+@Component
+@Slf4j
+public class IdSequenceAligner {
+
+    // matches allocationSize on the entities
+    private static final int ALLOCATION_SIZE = 50;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // the factory is only here so that Hibernate has created the sequence tables first
+    public IdSequenceAligner(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void align() {
+        align("post_seq", "post", "post_id");
+        align("comment_seq", "comment", "id");
+    }
+
+    private void align(String sequenceTable, String table, String idColumn) {
+        long floor = jdbcTemplate.queryForObject(
+                "select coalesce(max(" + idColumn + "), 0) from " + table, Long.class) + ALLOCATION_SIZE + 1;
+        jdbcTemplate.update("insert into " + sequenceTable + " (next_val) select ? from dual " +
+                "where not exists (select * from " + sequenceTable + ")", floor);
+        int updated = jdbcTemplate.update("update " + sequenceTable + " set next_val = ? where next_val < ?", floor, floor);
+        if (updated > 0) {
+            log.info("Moved {} to {}", sequenceTable, floor);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.redditclone.config;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.jwk.Curve;
+import com.nimbusds.jose.jwk.ECKey;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.ECKeyGenerator;
+import com.nimbusds.jose.jwk.source.ImmutableJWKSet;
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.Profiles;
+import org.springframework.core.io.Resource;
+import org.springframework.security.oauth2.jose.jws.SignatureAlgorithm;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtEncoder;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+import org.springframework.security.oauth2.jwt.NimbusJwtEncoder;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.interfaces.ECPrivateKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Base64;
+
+/**
+ * Picks the JWT signing key for the configured algorithm. The encoder and decoder are both built from that one key,
+ * so switching reddit.jwt.signing.algorithm switches signing and verification together.
+ */
+@Configuration
+@AllArgsConstructor
+@Slf4j
+public class JwtKeyConfig {
+
+    private final RsaKeyProperties rsaKeys;
+    private final JwtSigningProperties jwtSigning;
+    private final Environment environment;
+
+    @Bean
+    JWK jwtSigningKey() throws JOSEException, IOException, GeneralSecurityException {
+        SignatureAlgorithm algorithm = jwtSigning.algorithm();
+        return switch (algorithm) {
+            case RS256 -> new RSAKey.Builder(rsaKeys.publicKey()).privateKey(rsaKeys.privateKey()).build();
+            case ES256 -> ecKey();
+            default -> throw new IllegalStateException("Unsupported JWT signing algorithm " + algorithm);
+        };
+    }
+
+    public static JwtEncoder encoder(JWK signingKey) {
+        return new NimbusJwtEncoder(new ImmutableJWKSet<>(new JWKSet(signingKey)));
+    }
+
+    public static JwtDecoder decoder(JWK signingKey, SignatureAlgorithm algorithm) {
+        DefaultJWTProcessor<SecurityContext> jwtProcessor = new DefaultJWTProcessor<>();
+        jwtProcessor.setJWSKeySelector(new JWSVerificationKeySelector<>(JWSAlgorithm.parse(algorithm.getName()),
+                new ImmutableJWKSet<>(new JWKSet(signingKey.toPublicJWK()))));
+        // claims are validated by the Spring decoder's OAuth2TokenValidator
+        jwtProcessor.setJWTClaimsSetVerifier((claims, context) -> {
+        });
+        return new NimbusJwtDecoder(jwtProcessor);
+    }
+
+    private ECKey ecKey() throws JOSEException, IOException, GeneralSecurityException {
+        if (jwtSigning.ecPublicKey() == null || jwtSigning.ecPrivateKey() == null) {
+            // a key that changes on every restart and differs per instance only makes sense on a developer machine
+            if (!environment.acceptsProfiles(Profiles.of("local", "dev"))
+                    && !environment.getProperty("reddit.jwt.allow-ephemeral-key", Boolean.class, false)) {
+                throw new IllegalStateException("ES256 needs reddit.jwt.signing.ec-public-key and ec-private-key; "
+                        + "set reddit.jwt.allow-ephemeral-key=true or use the local profile to generate a temporary key");
+            }
+            log.warn("No EC key pair configured, generating a temporary P-256 key; tokens will not survive a restart");
+            return new ECKeyGenerator(Curve.P_256).generate();
+        }
+        KeyFactory keyFactory = KeyFactory.getInstance("EC");
+        ECPublicKey publicKey = (ECPublicKey) keyFactory.generatePublic(new X509EncodedKeySpec(readPem(jwtSigning.ecPublicKey())));
+        ECPrivateKey privateKey = (ECPrivateKey) keyFactory.generatePrivate(new PKCS8EncodedKeySpec(readPem(jwtSigning.ecPrivateKey())));
+        return new ECKey.Builder(Curve.P_256, publicKey).privateKey(privateKey).build();
+    }
+
+    private byte[] readPem(Resource resource) throws IOException {
+        String pem = StreamUtils.copyToString(resource.getInputStream(), StandardCharsets.US_ASCII)
+                .replaceAll("-----(BEGIN|END) [A-Z ]+-----", "")
+                .replaceAll("\\s", "");
+        return Base64.getDecoder().decode(pem);
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.redditclone.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.core.io.Resource;
+import org.springframework.security.oauth2.jose.jws.SignatureAlgorithm;
+
+@ConfigurationProperties(prefix = "reddit.jwt.signing")
+public record JwtSigningProperties(@DefaultValue("RS256") SignatureAlgorithm algorithm,
+                                   Resource ecPublicKey,
+                                   Resource ecPrivateKey) {
+
+}
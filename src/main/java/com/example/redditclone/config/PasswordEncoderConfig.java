@@ -0,0 +1,26 @@
+package com.example.redditclone.config;
+
+import com.example.redditclone.security.BoundedPasswordEncoder;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+
+@Configuration
+public class PasswordEncoderConfig {
+
+    @Bean
+    PasswordEncoder passwordEncoder(MeterRegistry meterRegistry,
+                                    @Value("${reddit.password.bcrypt-strength}") int strength,
+                                    @Value("${reddit.password.pool-size}") int poolSize,
+                                    @Value("${reddit.password.queue-capacity}") int queueCapacity,
+                                    @Value("${reddit.password.timeout}") Duration timeout,
+                                    @Value("${reddit.password.rehash-on-login}") boolean rehashOnLogin){
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(strength), poolSize, queueCapacity, timeout,
+                rehashOnLogin, meterRegistry);
+    }
+}
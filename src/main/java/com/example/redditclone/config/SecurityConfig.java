@@ -1,11 +1,13 @@
 package com.example.redditclone.config;
 
+import com.example.redditclone.security.CachingJwtDecoder;
 import com.nimbusds.jose.jwk.JWK;
 import com.nimbusds.jose.jwk.JWKSet;
 import com.nimbusds.jose.jwk.RSAKey;
 import com.nimbusds.jose.jwk.source.ImmutableJWKSet;
 import com.nimbusds.jose.jwk.source.JWKSource;
 import com.nimbusds.jose.proc.SecurityContext;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.AllArgsConstructor;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -23,7 +25,9 @@ import org.springframework.core.io.ResourceLoader;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authorization.AuthorizationManager;
 import org.springframework.security.config.BeanIds;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.Customizer;
+import org.springframework.security.config.annotation.ObjectPostProcessor;
 import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.web.WebSecurityConfigurer;
@@ -33,6 +37,7 @@ import org.springframework.security.config.annotation.web.configurers.oauth2.ser
 import org.springframework.security.config.crypto.RsaKeyConversionServicePostProcessor;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserCache;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -60,7 +65,6 @@ import static org.springframework.security.config.Customizer.withDefaults;
 //@ConfigurationProperties("jwt")
 public class SecurityConfig{
     private final UserDetailsService userDetailsService;
-    private final RsaKeyProperties rsaKeys;
 //    @Value("${spring.security.oauth2.resourceserver.jwt.public-key-location}")
 //    private final RSAPrivateKey rsaPrivateKey;
 //
@@ -100,25 +104,27 @@ public class SecurityConfig{
     }
 
     @Autowired
-    public void configureGlobal(AuthenticationManagerBuilder authenticationManagerBuilder) throws Exception {
+    public void configureGlobal(AuthenticationManagerBuilder authenticationManagerBuilder, PasswordEncoder passwordEncoder,
+                                UserCache userCache) throws Exception {
         authenticationManagerBuilder.userDetailsService(userDetailsService)
-                .passwordEncoder(passwordEncoder());
+                .passwordEncoder(passwordEncoder)
+                .withObjectPostProcessor(new ObjectPostProcessor<DaoAuthenticationProvider>() {
+                    @Override
+                    public <O extends DaoAuthenticationProvider> O postProcess(O provider) {
+                        provider.setUserCache(userCache);
+                        return provider;
+                    }
+                });
     }
 
     @Bean
-    PasswordEncoder passwordEncoder(){
-        return new BCryptPasswordEncoder();
+    JwtDecoder jwtDecoder(JWK jwtSigningKey, JwtSigningProperties jwtSigning, MeterRegistry meterRegistry,
+                          @Value("${reddit.jwt.cache.max-size}") long cacheSize){
+        return new CachingJwtDecoder(JwtKeyConfig.decoder(jwtSigningKey, jwtSigning.algorithm()), cacheSize, meterRegistry);
     }
 
     @Bean
-    JwtDecoder jwtDecoder(){
-        return NimbusJwtDecoder.withPublicKey(rsaKeys.publicKey()).build();
-    }
-
-    @Bean
-    JwtEncoder jwtEncoder(){
-          JWK jwk = new RSAKey.Builder(rsaKeys.publicKey()).privateKey(rsaKeys.privateKey()).build();
-          JWKSource<SecurityContext> jwks = new ImmutableJWKSet<>(new JWKSet(jwk));
-          return new NimbusJwtEncoder(jwks);
+    JwtEncoder jwtEncoder(JWK jwtSigningKey){
+          return JwtKeyConfig.encoder(jwtSigningKey);
     }
 }
@@ -0,0 +1,64 @@
+package com.example.redditclone.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Votes rely on the (post_id, user_id) unique key: INSERT IGNORE and the single-row flip only count
+ * correctly when a user has at most one vote per post. Tables from before the key can hold duplicates,
+ * and the schema update then fails to add it and carries on. Before anything is voted on, duplicates
+ * are reduced to the user's latest vote, the affected posts are recounted and the key is added.
+ * Startup fails if the key still cannot be created.
+ */
+@Component
+@Slf4j
+public class VoteKeyEnforcer {
+
+    private static final String KEY_NAME = "uk_vote_post_user";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    // the factory is only here so that Hibernate has run its schema update first
+    public VoteKeyEnforcer(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                           EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @PostConstruct
+    public void enforce() {
+        if (hasKey()) {
+            return;
+        }
+        // the delete and the recount commit together, so a failed start leaves nothing half-fixed
+        List<Long> postIds = jdbcTemplate.queryForList("select distinct post_id from vote " +
+                "group by post_id, user_id having count(*) > 1", Long.class);
+        int deleted = transactionTemplate.execute(status -> {
+            int rows = jdbcTemplate.update("delete older from vote older join vote newer " +
+                    "on newer.post_id = older.post_id and newer.user_id = older.user_id and newer.vote_id > older.vote_id");
+            // vote_type is the VoteType ordinal: 0 is an upvote, 1 a downvote
+            for (Long postId : postIds) {
+                jdbcTemplate.update("update post set vote_count = (select coalesce(sum(case vote_type when 0 then 1 else -1 end), 0) " +
+                        "from vote where vote.post_id = post.post_id), revision = coalesce(revision, 0) + 1 " +
+                        "where post_id = ?", postId);
+            }
+            return rows;
+        });
+        jdbcTemplate.execute("alter table vote add constraint " + KEY_NAME + " unique (post_id, user_id)");
+        log.info("Removed {} duplicate votes on {} posts and added {}", deleted, postIds.size(), KEY_NAME);
+    }
+
+    private boolean hasKey() {
+        Integer found = jdbcTemplate.queryForObject("select count(*) from information_schema.statistics " +
+                "where table_schema = database() and table_name = 'vote' and index_name = ?", Integer.class, KEY_NAME);
+        return found != null && found > 0;
+    }
+}
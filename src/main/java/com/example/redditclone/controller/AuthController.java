@@ -4,12 +4,15 @@ import com.example.redditclone.dto.AuthenticationResponse;
 import com.example.redditclone.dto.LoginRequest;
 import com.example.redditclone.dto.RefreshTokenRequest;
 import com.example.redditclone.dto.RegisterRequest;
+import com.example.redditclone.exceptions.PasswordHashingRejectedException;
 import com.example.redditclone.service.AuthService;
 import com.example.redditclone.service.RefreshTokenService;
 import jakarta.validation.Valid;
 import lombok.AllArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.InternalAuthenticationServiceException;
 import org.springframework.web.bind.annotation.*;
 
 @RestController
@@ -17,6 +20,8 @@ import org.springframework.web.bind.annotation.*;
 @AllArgsConstructor
 public class AuthController {
 
+    private static final String RETRY_AFTER_SECONDS = "1";
+
     private final AuthService authService;
     private final RefreshTokenService refreshTokenService;
 
@@ -35,8 +40,15 @@ public class AuthController {
 
     @PostMapping("/login")
     public AuthenticationResponse login(@RequestBody LoginRequest loginRequest){
-        return authService.login(loginRequest);
-
+        try {
+            return authService.login(loginRequest);
+        } catch (InternalAuthenticationServiceException e) {
+            // an unknown user is still hashed against, and the provider wraps a refusal of that hash
+            if (e.getCause() instanceof PasswordHashingRejectedException rejected) {
+                throw rejected;
+            }
+            throw e;
+        }
     }
 
     @PostMapping("/refresh/token")
@@ -50,4 +62,11 @@ public class AuthController {
         return ResponseEntity.status(HttpStatus.OK).body("Refresh Token Deleted Successfully!!");
     }
 
+    @ExceptionHandler(PasswordHashingRejectedException.class)
+    public ResponseEntity<String> passwordHashingRejected(PasswordHashingRejectedException e){
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+                .body(e.getMessage());
+    }
+
 }
@@ -1,12 +1,15 @@
 package com.example.redditclone.controller;
 
+import com.example.redditclone.dto.CommentNode;
 import com.example.redditclone.dto.CommentsDto;
-import com.example.redditclone.model.Comment;
+import com.example.redditclone.dto.CursorPage;
+import com.example.redditclone.model.CommentSort;
 import com.example.redditclone.service.CommentsService;
 import lombok.AllArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -24,8 +27,22 @@ public class CommentsController {
     }
 
     @GetMapping("/by-post/{postId}")
-    public ResponseEntity<List<CommentsDto>> getAllCommentsForPost(@PathVariable Long postId){
-        return ResponseEntity.status(HttpStatus.OK).body(commentsService.getAllCommentsForPost(postId));
+    public ResponseEntity<CursorPage<CommentsDto>> getAllCommentsForPost(@PathVariable Long postId,
+                                                                         @RequestParam(defaultValue = "NEW") CommentSort sort,
+                                                                         @RequestParam(required = false) String cursor,
+                                                                         @RequestParam(defaultValue = "" + CommentsService.DEFAULT_PAGE_SIZE) int size,
+                                                                         WebRequest request){
+        if (request.checkNotModified(commentsService.getCommentsETag(postId))) {
+            return null;
+        }
+        return ResponseEntity.status(HttpStatus.OK).body(commentsService.getCommentsForPost(postId, sort, cursor, size));
+    }
+
+    @GetMapping("/by-post/{postId}/tree")
+    public ResponseEntity<List<CommentNode>> getCommentTree(@PathVariable Long postId,
+                                                            @RequestParam(required = false) Long parentId,
+                                                            @RequestParam(defaultValue = "" + CommentsService.DEFAULT_TREE_DEPTH) int depth){
+        return ResponseEntity.status(HttpStatus.OK).body(commentsService.getCommentTree(postId, parentId, depth));
     }
 
     @GetMapping("/by-user/{username}")
@@ -0,0 +1,31 @@
+package com.example.redditclone.controller;
+
+import com.example.redditclone.model.User;
+import com.example.redditclone.service.ExportService;
+import lombok.AllArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+@RestController
+@RequestMapping("/api/export")
+@AllArgsConstructor
+public class ExportController {
+
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    private final ExportService exportService;
+
+    @GetMapping("/by-user/{name}/posts")
+    public ResponseEntity<StreamingResponseBody> exportPosts(@PathVariable("name") String username){
+        User user = exportService.findUser(username);
+        return ResponseEntity.ok().contentType(NDJSON).body(out -> exportService.writePosts(user, out));
+    }
+
+    @GetMapping("/by-user/{name}/comments")
+    public ResponseEntity<StreamingResponseBody> exportComments(@PathVariable("name") String username){
+        User user = exportService.findUser(username);
+        return ResponseEntity.ok().contentType(NDJSON).body(out -> exportService.writeComments(user, out));
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.redditclone.controller;
+
+import com.example.redditclone.live.LiveUpdateBroadcaster;
+import lombok.AllArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequestMapping("/api/live")
+@AllArgsConstructor
+public class LiveController {
+
+    private final LiveUpdateBroadcaster liveUpdateBroadcaster;
+
+    @GetMapping(value = "/posts/{id}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribePost(@PathVariable Long id){
+        return liveUpdateBroadcaster.subscribePost(id);
+    }
+
+    @GetMapping(value = "/subreddits/{id}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribeSubreddit(@PathVariable Long id){
+        return liveUpdateBroadcaster.subscribeSubreddit(id);
+    }
+}
@@ -1,14 +1,19 @@
 package com.example.redditclone.controller;
 
+import com.example.redditclone.dto.CursorPage;
 import com.example.redditclone.dto.PostRequest;
 import com.example.redditclone.dto.PostResponse;
+import com.example.redditclone.ranking.FeedSort;
+import com.example.redditclone.ranking.TopWindow;
+import com.example.redditclone.service.PostResponseCache;
 import com.example.redditclone.service.PostService;
 import lombok.AllArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-
-import java.util.List;
+import org.springframework.web.context.request.WebRequest;
 
 @RestController
 @RequestMapping("/api/posts")
@@ -16,6 +21,7 @@ import java.util.List;
 public class PostController {
 
     private final PostService postService;
+    private final PostResponseCache postResponseCache;
 
     @PostMapping
     public ResponseEntity createPost(@RequestBody PostRequest postRequest){
@@ -24,23 +30,75 @@ public class PostController {
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<PostResponse> getPost(@PathVariable Long id){
-        return ResponseEntity.status(HttpStatus.OK).body(postService.getPost(id));
+    public ResponseEntity<byte[]> getPost(@PathVariable Long id, WebRequest request,
+                                          @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding){
+        String eTag = postService.getPostETag(id);
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+        PostResponseCache.Body body = postResponseCache.get(id, eTag);
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(HttpStatus.OK)
+                .eTag(body.eTag())
+                .contentType(MediaType.APPLICATION_JSON)
+                .varyBy(HttpHeaders.ACCEPT_ENCODING);
+        if (body.gzip() != null && acceptsGzip(acceptEncoding)) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(body.gzip());
+        }
+        return response.body(body.json());
+    }
+
+    // gzip counts as accepted when listed, or covered by "*", with a q-value above zero
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Double wildcard = null;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            String name = parts[0].trim();
+            double q = 1;
+            for (int i = 1; i < parts.length; i++) {
+                String param = parts[i].trim();
+                if (param.regionMatches(true, 0, "q=", 0, 2)) {
+                    try {
+                        q = Double.parseDouble(param.substring(2).trim());
+                    } catch (NumberFormatException e) {
+                        q = 0;
+                    }
+                }
+            }
+            if (name.equalsIgnoreCase("gzip") || name.equalsIgnoreCase("x-gzip")) {
+                return q > 0;
+            }
+            if (name.equals("*")) {
+                wildcard = q;
+            }
+        }
+        return wildcard != null && wildcard > 0;
     }
 
     @GetMapping("/")
-    public ResponseEntity<List<PostResponse>> getAllPosts(){
-        return ResponseEntity.status(HttpStatus.OK).body(postService.getAllPosts());
+    public ResponseEntity<CursorPage<PostResponse>> getAllPosts(@RequestParam(defaultValue = "NEW") FeedSort sort,
+                                                                @RequestParam(defaultValue = "ALL") TopWindow window,
+                                                                @RequestParam(required = false) String cursor,
+                                                                @RequestParam(defaultValue = "" + PostService.DEFAULT_PAGE_SIZE) int size){
+        return ResponseEntity.status(HttpStatus.OK).body(postService.getAllPosts(sort, window, cursor, size));
     }
 
     @GetMapping("/by-subreddit/{id}")
-    public ResponseEntity<List<PostResponse>> getPostsBySubreddit(Long id){
-        return ResponseEntity.status(HttpStatus.OK).body(postService.getPostsBySubreddit(id));
+    public ResponseEntity<CursorPage<PostResponse>> getPostsBySubreddit(@PathVariable Long id,
+                                                                        @RequestParam(defaultValue = "NEW") FeedSort sort,
+                                                                        @RequestParam(defaultValue = "ALL") TopWindow window,
+                                                                        @RequestParam(required = false) String cursor,
+                                                                        @RequestParam(defaultValue = "" + PostService.DEFAULT_PAGE_SIZE) int size){
+        return ResponseEntity.status(HttpStatus.OK).body(postService.getPostsBySubreddit(id, sort, window, cursor, size));
     }
 
     @GetMapping("/by-user/{name}")
-    public ResponseEntity<List<PostResponse>> getPostsByUsername(String username){
-        return ResponseEntity.status(HttpStatus.OK).body(postService.getPostsByUsername(username));
+    public ResponseEntity<CursorPage<PostResponse>> getPostsByUsername(@PathVariable("name") String username,
+                                                                       @RequestParam(required = false) String cursor,
+                                                                       @RequestParam(defaultValue = "" + PostService.DEFAULT_PAGE_SIZE) int size){
+        return ResponseEntity.status(HttpStatus.OK).body(postService.getPostsByUsername(username, cursor, size));
     }
 
 
@@ -0,0 +1,27 @@
+package com.example.redditclone.controller;
+
+import com.example.redditclone.dto.SearchResult;
+import com.example.redditclone.search.SearchService;
+import lombok.AllArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/search")
+@AllArgsConstructor
+public class SearchController {
+
+    private final SearchService searchService;
+
+    @GetMapping
+    public ResponseEntity<List<SearchResult>> search(@RequestParam("q") String query,
+                                                     @RequestParam(required = false) String subreddit,
+                                                     @RequestParam(required = false) String author,
+                                                     @RequestParam(required = false) String type,
+                                                     @RequestParam(defaultValue = "" + SearchService.DEFAULT_PAGE_SIZE) int size){
+        return ResponseEntity.status(HttpStatus.OK).body(searchService.search(query, subreddit, author, type, size));
+    }
+}
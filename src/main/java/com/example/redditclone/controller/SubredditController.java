@@ -8,6 +8,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -26,16 +27,24 @@ public class SubredditController {
     }
 
     @GetMapping
-    public ResponseEntity<List<SubredditDto>> getAllSubreddits(){
+    public ResponseEntity<List<SubredditDto>> getAllSubreddits(WebRequest request){
+        if (request.checkNotModified(subredditService.getCatalogETag())) {
+            return null;
+        }
         return ResponseEntity
                 .status(HttpStatus.OK)
                 .body(subredditService.getAll());
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<SubredditDto> getSubreddit(@PathVariable Long id){
+    public ResponseEntity<SubredditDto> getSubreddit(@PathVariable Long id, WebRequest request){
+        // looked up first, so an unknown id is an error rather than a 304
+        SubredditDto subreddit = subredditService.getSubreddit(id);
+        if (request.checkNotModified(subredditService.getCatalogETag())) {
+            return null;
+        }
         return ResponseEntity
                 .status(HttpStatus.OK)
-                .body(subredditService.getSubreddit(id));
+                .body(subreddit);
     }
 }
@@ -5,10 +5,7 @@ import com.example.redditclone.service.VoteService;
 import lombok.AllArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.web.bind.annotation.PostMapping;
-import org.springframework.web.bind.annotation.RequestBody;
-import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.bind.annotation.*;
 
 @RestController
 @RequestMapping("/api/votes/")
@@ -23,5 +20,11 @@ public class VoteController {
         return new ResponseEntity<>(HttpStatus.OK);
     }
 
+    @DeleteMapping
+    public ResponseEntity<Void> clearVote(@RequestBody VoteDto voteDto){
+        voteService.clearVote(voteDto);
+        return new ResponseEntity<>(HttpStatus.OK);
+    }
+
 
 }
@@ -0,0 +1,19 @@
+package com.example.redditclone.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CommentImport {
+    private Long postId;
+    private Long userId;
+    // an existing comment; replies to comments from the same import need a later call
+    private Long parentId;
+    private String text;
+    private Instant createdDate;
+}
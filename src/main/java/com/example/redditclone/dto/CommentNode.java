@@ -0,0 +1,33 @@
+package com.example.redditclone.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+public class CommentNode {
+    private Long id;
+    private Long parentId;
+    private Instant createdDate;
+    private String text;
+    private String userName;
+    private Integer depth;
+    // direct replies, also reported for branches cut off by the requested depth
+    private Integer replyCount;
+    private List<CommentNode> replies = new ArrayList<>();
+
+    public CommentNode(Long id, Long parentId, Instant createdDate, String text, String userName, Integer depth,
+                       Integer replyCount) {
+        this.id = id;
+        this.parentId = parentId;
+        this.createdDate = createdDate;
+        this.text = text;
+        this.userName = userName;
+        this.depth = depth;
+        this.replyCount = replyCount;
+    }
+}
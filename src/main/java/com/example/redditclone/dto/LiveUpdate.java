@@ -0,0 +1,18 @@
+package com.example.redditclone.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class LiveUpdate {
+    private Long postId;
+    private long voteDelta;
+    private int newComments;
+    // at most reddit.live.max-comments-per-event of them; newComments has the full count
+    private List<CommentsDto> comments;
+}
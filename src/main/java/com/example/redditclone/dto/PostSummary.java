@@ -0,0 +1,26 @@
+package com.example.redditclone.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PostSummary {
+    private Long postId;
+    private String postName;
+    private String url;
+    private String description;
+    private String userName;
+    private String subredditName;
+    private Integer voteCount;
+    private Integer commentCount;
+    private Instant createdDate;
+    // the row version the counts were read at
+    @JsonIgnore
+    private Long revision;
+}
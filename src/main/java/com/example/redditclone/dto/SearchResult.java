@@ -0,0 +1,21 @@
+package com.example.redditclone.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class SearchResult {
+    private String type;
+    private Long id;
+    private Long postId;
+    private String postName;
+    private String userName;
+    private String subredditName;
+    private Instant createdDate;
+    private float score;
+}
@@ -0,0 +1,6 @@
+package com.example.redditclone.dto;
+
+public interface SubredditPostCount {
+    Long getSubredditId();
+    Long getPostCount();
+}
@@ -0,0 +1,15 @@
+package com.example.redditclone.dto;
+
+import com.example.redditclone.model.VoteType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class VoteImport {
+    private Long postId;
+    private Long userId;
+    private VoteType voteType;
+}
@@ -0,0 +1,7 @@
+package com.example.redditclone.exceptions;
+
+public class CommentNotFoundException extends RuntimeException {
+    public CommentNotFoundException(String s) {
+        super(s);
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.redditclone.live;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One open SSE connection. Events wait in a bounded queue that a shared sender thread drains; a
+ * subscriber whose queue overflows is too slow to keep up and gets disconnected rather than buffered
+ * for. An idle subscriber holds only the emitter and an empty queue. A write that blocks past the
+ * send timeout is abandoned by the broadcaster's watchdog, so one stuck client cannot hold a sender thread.
+ */
+class LiveSubscriber {
+
+    private final SseEmitter emitter;
+    private final int maxQueued;
+    private final Queue<Event> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private volatile boolean closed;
+    private volatile boolean timedOut;
+    // guards sendingThread and sendStartedAt, so an interrupt only ever reaches the send it was meant for
+    private final Object sendLock = new Object();
+    private Thread sendingThread;
+    private long sendStartedAt;
+
+    LiveSubscriber(SseEmitter emitter, int maxQueued) {
+        this.emitter = emitter;
+        this.maxQueued = maxQueued;
+    }
+
+    SseEmitter emitter() {
+        return emitter;
+    }
+
+    /**
+     * Queues an event (name and pre-serialized data; a null name sends a comment line) and
+     * returns false if the subscriber was dropped.
+     */
+    boolean offer(String name, String data, Executor sender) {
+        if (closed) {
+            return false;
+        }
+        if (queued.incrementAndGet() > maxQueued) {
+            close();
+            return false;
+        }
+        queue.add(new Event(name, data));
+        if (draining.compareAndSet(false, true)) {
+            sender.execute(() -> drain(sender));
+        }
+        return true;
+    }
+
+    /**
+     * Abandons the subscriber if its current send has been blocked for longer than the limit: it is
+     * closed, and the sender thread is interrupted to get it out of the write.
+     */
+    boolean abandonIfStalled(long nowNanos, long limitNanos) {
+        synchronized (sendLock) {
+            if (closed || sendingThread == null || nowNanos - sendStartedAt < limitNanos) {
+                return false;
+            }
+            timedOut = true;
+            closed = true;
+            queue.clear();
+            sendingThread.interrupt();
+            return true;
+        }
+    }
+
+    void close() {
+        if (!closed) {
+            closed = true;
+            queue.clear();
+            emitter.complete();
+        }
+    }
+
+    private void drain(Executor sender) {
+        Event event;
+        while (!closed && (event = queue.poll()) != null) {
+            queued.decrementAndGet();
+            synchronized (sendLock) {
+                sendingThread = Thread.currentThread();
+                sendStartedAt = System.nanoTime();
+            }
+            try {
+                emitter.send(event.name() == null
+                        ? SseEmitter.event().comment(event.data())
+                        : SseEmitter.event().name(event.name()).data(event.data()));
+            } catch (IOException | IllegalStateException e) {
+                closed = true;
+                queue.clear();
+                emitter.completeWithError(e);
+                return;
+            } finally {
+                synchronized (sendLock) {
+                    sendingThread = null;
+                    // the watchdog's interrupt must not leak into the next task on this thread
+                    Thread.interrupted();
+                }
+            }
+        }
+        if (timedOut) {
+            // the write returned after all; the emitter can only be completed from here, as it is locked during send
+            emitter.completeWithError(new TimeoutException("SSE write exceeded the send timeout"));
+            return;
+        }
+        draining.set(false);
+        // an event may have been queued after the last poll but before the flag was cleared
+        if (!closed && !queue.isEmpty() && draining.compareAndSet(false, true)) {
+            sender.execute(() -> drain(sender));
+        }
+    }
+
+    private record Event(String name, String data) {
+    }
+}
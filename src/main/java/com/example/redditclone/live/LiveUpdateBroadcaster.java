@@ -0,0 +1,218 @@
+package com.example.redditclone.live;
+
+import com.example.redditclone.dto.CommentsDto;
+import com.example.redditclone.dto.LiveUpdate;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fans vote and comment changes out to SSE subscribers of a post or of a subreddit. Changes are
+ * collected per post and published once per tick, so a burst of votes on a hot post becomes one
+ * event carrying the summed delta. Each event is serialized once and shared by all its subscribers.
+ */
+@Component
+@Slf4j
+public class LiveUpdateBroadcaster implements DisposableBean {
+
+    private static final String EVENT_NAME = "update";
+
+    private final ObjectMapper objectMapper;
+    private final Duration emitterTimeout;
+    private final Duration sendTimeout;
+    private final int maxQueuedEvents;
+    private final int maxCommentsPerEvent;
+    private final ExecutorService sender;
+    private final Map<String, Set<LiveSubscriber>> topics = new ConcurrentHashMap<>();
+    private final Map<Long, Pending> pending = new ConcurrentHashMap<>();
+    private final AtomicInteger subscribers = new AtomicInteger();
+    private final Counter dropped;
+
+    public LiveUpdateBroadcaster(ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                                 @Value("${reddit.live.emitter-timeout}") Duration emitterTimeout,
+                                 @Value("${reddit.live.send-timeout}") Duration sendTimeout,
+                                 @Value("${reddit.live.max-queued-events}") int maxQueuedEvents,
+                                 @Value("${reddit.live.max-comments-per-event}") int maxCommentsPerEvent,
+                                 @Value("${reddit.live.sender-threads}") int senderThreads) {
+        this.objectMapper = objectMapper;
+        this.emitterTimeout = emitterTimeout;
+        this.sendTimeout = sendTimeout;
+        this.maxQueuedEvents = maxQueuedEvents;
+        this.maxCommentsPerEvent = maxCommentsPerEvent;
+        AtomicInteger threadId = new AtomicInteger();
+        this.sender = Executors.newFixedThreadPool(senderThreads, runnable -> {
+            Thread thread = new Thread(runnable, "live-sender-" + threadId.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        Gauge.builder("reddit.live.subscribers", subscribers, AtomicInteger::get).register(meterRegistry);
+        this.dropped = Counter.builder("reddit.live.dropped")
+                .description("Subscribers removed because they fell behind or their connection failed")
+                .register(meterRegistry);
+    }
+
+    public SseEmitter subscribePost(Long postId) {
+        return subscribe(postTopic(postId));
+    }
+
+    public SseEmitter subscribeSubreddit(Long subredditId) {
+        return subscribe(subredditTopic(subredditId));
+    }
+
+    public void voteChanged(Long postId, Long subredditId, long delta) {
+        if (hasSubscribers(postId, subredditId)) {
+            pending.compute(postId, (id, changes) -> (changes == null ? new Pending(subredditId) : changes)
+                    .addVote(delta));
+        }
+    }
+
+    public void commentAdded(Long subredditId, CommentsDto comment) {
+        if (hasSubscribers(comment.getPostId(), subredditId)) {
+            pending.compute(comment.getPostId(), (id, changes) -> (changes == null ? new Pending(subredditId) : changes)
+                    .addComment(comment, maxCommentsPerEvent));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${reddit.live.tick}")
+    public void publish() {
+        for (Long postId : pending.keySet()) {
+            Pending changes = pending.remove(postId);
+            if (changes == null) {
+                continue;
+            }
+            String json;
+            try {
+                json = objectMapper.writeValueAsString(changes.toUpdate(postId));
+            } catch (JsonProcessingException e) {
+                log.warn("Could not serialize live update for post {}", postId, e);
+                continue;
+            }
+            send(postTopic(postId), EVENT_NAME, json);
+            send(subredditTopic(changes.subredditId), EVENT_NAME, json);
+        }
+    }
+
+    // keeps idle connections open through proxies and finds the ones that are gone
+    @Scheduled(fixedDelayString = "${reddit.live.heartbeat-interval}")
+    public void heartbeat() {
+        for (String topic : topics.keySet()) {
+            send(topic, null, "ping");
+        }
+    }
+
+    // a client that stops reading blocks its write; drop it so the sender thread can move on
+    @Scheduled(fixedDelayString = "${reddit.live.tick}")
+    public void abandonStalled() {
+        long now = System.nanoTime();
+        topics.forEach((topic, set) -> set.forEach(subscriber -> {
+            if (subscriber.abandonIfStalled(now, sendTimeout.toNanos())) {
+                dropped.increment();
+                unsubscribe(topic, subscriber);
+            }
+        }));
+    }
+
+    @Override
+    public void destroy() {
+        sender.shutdownNow();
+        topics.values().forEach(set -> set.forEach(LiveSubscriber::close));
+    }
+
+    private SseEmitter subscribe(String topic) {
+        SseEmitter emitter = new SseEmitter(emitterTimeout.toMillis());
+        LiveSubscriber subscriber = new LiveSubscriber(emitter, maxQueuedEvents);
+        // added inside compute, so a concurrent unsubscribe cannot drop the set between lookup and add
+        topics.compute(topic, (t, set) -> {
+            Set<LiveSubscriber> members = set == null ? ConcurrentHashMap.newKeySet() : set;
+            members.add(subscriber);
+            return members;
+        });
+        subscribers.incrementAndGet();
+        Runnable remove = () -> unsubscribe(topic, subscriber);
+        emitter.onCompletion(remove);
+        emitter.onTimeout(remove);
+        emitter.onError(e -> remove.run());
+        return emitter;
+    }
+
+    private void unsubscribe(String topic, LiveSubscriber subscriber) {
+        topics.computeIfPresent(topic, (t, set) -> {
+            if (set.remove(subscriber)) {
+                subscribers.decrementAndGet();
+            }
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    private void send(String topic, String name, String data) {
+        Set<LiveSubscriber> set = topics.get(topic);
+        if (set == null) {
+            return;
+        }
+        for (LiveSubscriber subscriber : set) {
+            if (!subscriber.offer(name, data, sender)) {
+                dropped.increment();
+                unsubscribe(topic, subscriber);
+            }
+        }
+    }
+
+    private boolean hasSubscribers(Long postId, Long subredditId) {
+        return topics.containsKey(postTopic(postId)) || topics.containsKey(subredditTopic(subredditId));
+    }
+
+    private static String postTopic(Long postId) {
+        return "post:" + postId;
+    }
+
+    private static String subredditTopic(Long subredditId) {
+        return "subreddit:" + subredditId;
+    }
+
+    // only touched inside pending.compute, or after it has been removed from the map
+    private static final class Pending {
+        private final Long subredditId;
+        private long voteDelta;
+        private int newComments;
+        private final List<CommentsDto> comments = new ArrayList<>();
+
+        private Pending(Long subredditId) {
+            this.subredditId = subredditId;
+        }
+
+        Pending addVote(long delta) {
+            voteDelta += delta;
+            return this;
+        }
+
+        Pending addComment(CommentsDto comment, int maxComments) {
+            newComments++;
+            if (comments.size() < maxComments) {
+                comments.add(comment);
+            }
+            return this;
+        }
+
+        LiveUpdate toUpdate(Long postId) {
+            return new LiveUpdate(postId, voteDelta, newComments, List.copyOf(comments));
+        }
+    }
+}
@@ -8,16 +8,22 @@ import org.yaml.snakeyaml.events.Event;
 import java.time.Instant;
 
 import static jakarta.persistence.FetchType.LAZY;
-import static jakarta.persistence.GenerationType.IDENTITY;
+import static jakarta.persistence.GenerationType.SEQUENCE;
 
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
 @Builder
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_comment_post_path", columnList = "postId, path"),
+        @Index(name = "idx_comment_post_created", columnList = "postId, createdDate, id")
+})
 public class Comment {
     @Id
-    @GeneratedValue(strategy = IDENTITY)
+    // pooled: one sequence round-trip per 50 ids, and inserts can be batched
+    @GeneratedValue(strategy = SEQUENCE, generator = "comment_seq")
+    @SequenceGenerator(name = "comment_seq", sequenceName = "comment_seq", allocationSize = 50)
     private Long id;
     @NotEmpty
     private String text;
@@ -28,4 +34,10 @@ public class Comment {
     @ManyToOne(fetch = LAZY)
     @JoinColumn(name = "userId", referencedColumnName = "userId")
     private User user;
+    private Long parentId;
+    // zero-padded ids of all ancestors and the comment itself, so a subtree is one prefix range of the index
+    @Column(length = 512)
+    private String path;
+    private Integer depth;
+    private Integer replyCount;
 }
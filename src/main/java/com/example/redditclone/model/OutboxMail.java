@@ -0,0 +1,33 @@
+package com.example.redditclone.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+import static jakarta.persistence.GenerationType.IDENTITY;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity
+@Table(indexes = {@Index(name = "idx_outbox_mail_due", columnList = "status, nextAttemptAt"),
+        @Index(name = "idx_outbox_mail_sent", columnList = "status, sentDate")})
+public class OutboxMail {
+    @Id
+    @GeneratedValue(strategy = IDENTITY)
+    private Long id;
+    private String recipient;
+    private String subject;
+    @Lob
+    private String body;
+    @Enumerated(EnumType.STRING)
+    private OutboxStatus status;
+    private int attempts;
+    private Instant nextAttemptAt;
+    private Instant createdDate;
+    private Instant sentDate;
+    @Column(length = 1000)
+    private String lastError;
+}
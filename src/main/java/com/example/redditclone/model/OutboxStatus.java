@@ -0,0 +1,5 @@
+package com.example.redditclone.model;
+
+public enum OutboxStatus {
+    PENDING, SENT, DEAD
+}
@@ -8,16 +8,22 @@ import org.springframework.lang.Nullable;
 import java.time.Instant;
 
 import static jakarta.persistence.FetchType.LAZY;
-import static jakarta.persistence.GenerationType.IDENTITY;
+import static jakarta.persistence.GenerationType.SEQUENCE;
 
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
 @Builder
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_post_created", columnList = "createdDate, postId"),
+        @Index(name = "idx_post_subreddit_created", columnList = "id, createdDate, postId"),
+        @Index(name = "idx_post_user_created", columnList = "userId, createdDate, postId")
+})
 public class Post {
     @Id
-    @GeneratedValue(strategy = IDENTITY)
+    @GeneratedValue(strategy = SEQUENCE, generator = "post_seq")
+    @SequenceGenerator(name = "post_seq", sequenceName = "post_seq", allocationSize = 50)
     private Long postId;
     @NotBlank(message = "Post Name cannot be empty or Null")
     private String postName;
@@ -27,6 +33,9 @@ public class Post {
     @Lob
     private String description;
     private Integer voteCount;
+    private Integer commentCount;
+    // bumped by every write that changes the post's payload; backs its ETag
+    private Long revision;
     @ManyToOne(fetch = LAZY)
     @JoinColumn(name = "id", referencedColumnName = "id")
     private Subreddit subreddit;
@@ -12,6 +12,7 @@ import static jakarta.persistence.GenerationType.IDENTITY;
 @NoArgsConstructor
 @Builder
 @Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_vote_post_user", columnNames = {"postId", "userId"}))
 public class Vote {
     @Id
     @GeneratedValue(strategy = IDENTITY)
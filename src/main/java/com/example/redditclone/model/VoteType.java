@@ -10,6 +10,7 @@ public enum VoteType {
     private int direction;
 
     VoteType(int direction){
+        this.direction = direction;
     }
 
     public static VoteType lookup(Integer direction){
@@ -0,0 +1,5 @@
+package com.example.redditclone.ranking;
+
+public enum FeedSort {
+    NEW, HOT, TOP
+}
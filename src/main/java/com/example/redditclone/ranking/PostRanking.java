@@ -0,0 +1,62 @@
+package com.example.redditclone.ranking;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Ranked lists for one scope, either a single subreddit or the whole site, each capped at the depth
+ * pages are served from memory. Reads are lock free; the owning service serializes writes per post.
+ */
+class PostRanking {
+
+    private final RankedKeys hot;
+    private final Map<TopWindow, RankedKeys> top;
+
+    PostRanking(int depth) {
+        this.hot = new RankedKeys(depth);
+        this.top = Map.of(
+                TopWindow.DAY, new RankedKeys(depth),
+                TopWindow.WEEK, new RankedKeys(depth),
+                TopWindow.ALL, new RankedKeys(depth));
+    }
+
+    /**
+     * Adds the post to the lists it belongs in and collects the ids of posts it pushed out of them.
+     */
+    void add(RankedPost post, boolean inDay, boolean inWeek, Collection<Long> evicted) {
+        collect(hot.add(post.hotKey()), evicted);
+        RankKey topKey = post.topKey();
+        collect(top.get(TopWindow.ALL).add(topKey), evicted);
+        if (inWeek) {
+            collect(top.get(TopWindow.WEEK).add(topKey), evicted);
+        }
+        if (inDay) {
+            collect(top.get(TopWindow.DAY).add(topKey), evicted);
+        }
+    }
+
+    void remove(RankedPost post) {
+        hot.remove(post.hotKey());
+        RankKey topKey = post.topKey();
+        top.values().forEach(keys -> keys.remove(topKey));
+    }
+
+    void expire(RankedPost post, TopWindow window) {
+        top.get(window).remove(post.topKey());
+    }
+
+    boolean holds(RankedPost post) {
+        RankKey topKey = post.topKey();
+        return hot.contains(post.hotKey()) || top.values().stream().anyMatch(keys -> keys.contains(topKey));
+    }
+
+    RankedKeys keys(FeedSort sort, TopWindow window) {
+        return sort == FeedSort.HOT ? hot : top.get(window);
+    }
+
+    private static void collect(RankKey evicted, Collection<Long> evictedIds) {
+        if (evicted != null) {
+            evictedIds.add(evicted.postId());
+        }
+    }
+}
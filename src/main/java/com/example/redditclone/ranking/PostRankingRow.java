@@ -0,0 +1,11 @@
+package com.example.redditclone.ranking;
+
+import java.time.Instant;
+
+public interface PostRankingRow {
+    Long getPostId();
+    Long getSubredditId();
+    Instant getCreatedDate();
+    Integer getVoteCount();
+    Long getRevision();
+}
@@ -0,0 +1,303 @@
+package com.example.redditclone.ranking;
+
+import com.example.redditclone.model.Post;
+import com.example.redditclone.repository.PostRepository;
+import com.example.redditclone.service.VoteCountAggregator;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Keeps hot and top rankings for every subreddit and for the whole site in memory, each list capped at
+ * the depth pages are usually read to; pages past it are read from the database. Only posts held by some
+ * list are kept. Rankings are loaded in batches at startup and then updated incrementally as posts and
+ * votes come in.
+ */
+@Service
+@Slf4j
+public class PostRankingService {
+
+    // far enough out to cover any created date, near enough for a DATETIME column in any time zone
+    private static final Instant LATEST = Instant.parse("9000-01-01T00:00:00Z");
+
+    private final PostRepository postRepository;
+    private final VoteCountAggregator voteCountAggregator;
+    private final int depth;
+    private final int loadBatchSize;
+
+    private final Map<Long, RankedPost> posts = new ConcurrentHashMap<>();
+    private final PostRanking all;
+    private final Map<Long, PostRanking> bySubreddit = new ConcurrentHashMap<>();
+    // only grows, so it stays an upper bound on how far votes can move any hot score
+    private final AtomicLong maxAbsVotes = new AtomicLong();
+
+    public PostRankingService(PostRepository postRepository, VoteCountAggregator voteCountAggregator,
+                              @Value("${reddit.ranking.depth}") int depth,
+                              @Value("${reddit.ranking.load-batch-size}") int loadBatchSize) {
+        this.postRepository = postRepository;
+        this.voteCountAggregator = voteCountAggregator;
+        this.depth = depth;
+        this.loadBatchSize = loadBatchSize;
+        this.all = new PostRanking(depth);
+    }
+
+    @PostConstruct
+    public void rebuild() {
+        long loaded = 0;
+        long afterId = 0;
+        List<PostRankingRow> rows;
+        do {
+            rows = postRepository.findRankingRowsAfter(afterId, PageRequest.of(0, loadBatchSize));
+            for (PostRankingRow row : rows) {
+                RankedPost post = load(row);
+                put(post.postId(), previous -> post);
+                afterId = row.getPostId();
+            }
+            loaded += rows.size();
+        } while (rows.size() == loadBatchSize);
+        log.info("Loaded rankings for {} posts, keeping {}", loaded, posts.size());
+    }
+
+    public void onPostCreated(Post post) {
+        RankedPost created = new RankedPost(post.getPostId(), post.getSubreddit().getId(), post.getCreatedDate(),
+                post.getVoteCount() == null ? 0 : post.getVoteCount());
+        put(created.postId(), previous -> created);
+    }
+
+    public void onVote(Long postId, long delta) {
+        if (put(postId, previous -> previous == null ? null : previous.withVotes(delta))) {
+            return;
+        }
+        // not held by any list, but the vote may have lifted it into one; its current count includes this vote
+        RankedPost loaded = postRepository.findRankingRow(postId).map(this::load).orElse(null);
+        if (loaded != null) {
+            put(postId, previous -> previous == null ? loaded : previous.withVotes(delta));
+        }
+    }
+
+    public List<RankKey> page(Long subredditId, FeedSort sort, TopWindow window, RankKey after, int size) {
+        PostRanking ranking = subredditId == null ? all : bySubreddit.get(subredditId);
+        if (ranking == null) {
+            return Collections.emptyList();
+        }
+        RankedKeys keys = ranking.keys(sort, window);
+        // read before paging, so a list truncated meanwhile still sends the rest of the page to the database
+        boolean truncated = keys.truncated();
+        List<RankKey> page = keys.page(after, size);
+        if (page.size() == size || !truncated) {
+            return page;
+        }
+        RankKey from = page.isEmpty() ? after : page.get(page.size() - 1);
+        List<RankKey> result = new ArrayList<>(page);
+        for (RankedPost post : fromDatabase(subredditId, sort, window, from, size - page.size(), keys::contains)) {
+            result.add(key(sort, post));
+        }
+        return result;
+    }
+
+    @Scheduled(fixedDelayString = "${reddit.ranking.prune-interval}")
+    public void pruneWindows() {
+        Instant now = Instant.now();
+        Instant dayCutoff = now.minus(TopWindow.DAY.getLength());
+        Instant weekCutoff = now.minus(TopWindow.WEEK.getLength());
+        for (Long postId : posts.keySet()) {
+            // also lets go of posts pushed out of every list they were in
+            posts.computeIfPresent(postId, (id, post) -> {
+                if (!post.createdAfter(dayCutoff)) {
+                    expire(post, TopWindow.DAY);
+                }
+                if (!post.createdAfter(weekCutoff)) {
+                    expire(post, TopWindow.WEEK);
+                }
+                return held(post) ? post : null;
+            });
+        }
+        refill(null, all);
+        bySubreddit.forEach(this::refill);
+    }
+
+    /**
+     * Replaces the post with the result of the update, which gets the post held so far or null, and
+     * returns whether one was held. A post no list holds any more is let go.
+     */
+    private boolean put(Long postId, Function<RankedPost, RankedPost> update) {
+        Instant now = Instant.now();
+        List<Long> evicted = new ArrayList<>();
+        boolean[] held = new boolean[1];
+        posts.compute(postId, (id, previous) -> {
+            held[0] = previous != null;
+            RankedPost current = update.apply(previous);
+            if (current == null) {
+                return previous;
+            }
+            if (previous != null) {
+                unlink(previous);
+            }
+            link(current, now, evicted);
+            return held(current) ? current : null;
+        });
+        release(evicted);
+        return held[0];
+    }
+
+    private void link(RankedPost post, Instant now, List<Long> evicted) {
+        maxAbsVotes.accumulateAndGet(Math.abs(post.voteCount()), Math::max);
+        boolean inDay = post.createdAfter(now.minus(TopWindow.DAY.getLength()));
+        boolean inWeek = post.createdAfter(now.minus(TopWindow.WEEK.getLength()));
+        all.add(post, inDay, inWeek, evicted);
+        if (post.subredditId() != null) {
+            bySubreddit.computeIfAbsent(post.subredditId(), id -> new PostRanking(depth)).add(post, inDay, inWeek, evicted);
+        }
+    }
+
+    private void unlink(RankedPost post) {
+        all.remove(post);
+        PostRanking subreddit = subredditRanking(post);
+        if (subreddit != null) {
+            subreddit.remove(post);
+        }
+    }
+
+    private void expire(RankedPost post, TopWindow window) {
+        all.expire(post, window);
+        PostRanking subreddit = subredditRanking(post);
+        if (subreddit != null) {
+            subreddit.expire(post, window);
+        }
+    }
+
+    private boolean held(RankedPost post) {
+        PostRanking subreddit = subredditRanking(post);
+        return all.holds(post) || subreddit != null && subreddit.holds(post);
+    }
+
+    // a post refilled into the site-wide lists may belong to a subreddit no list was made for yet
+    private PostRanking subredditRanking(RankedPost post) {
+        return post.subredditId() == null ? null : bySubreddit.get(post.subredditId());
+    }
+
+    // runs outside the compute that pushed them out, as a map entry must not touch another one
+    private void release(List<Long> evicted) {
+        for (Long postId : evicted) {
+            posts.computeIfPresent(postId, (id, post) -> held(post) ? post : null);
+        }
+    }
+
+    private void refill(Long subredditId, PostRanking ranking) {
+        refill(subredditId, ranking, FeedSort.HOT, TopWindow.ALL);
+        for (TopWindow window : TopWindow.values()) {
+            refill(subredditId, ranking, FeedSort.TOP, window);
+        }
+    }
+
+    private void refill(Long subredditId, PostRanking ranking, FeedSort sort, TopWindow window) {
+        RankedKeys keys = ranking.keys(sort, window);
+        if (!keys.depleted()) {
+            return;
+        }
+        List<Long> evicted = new ArrayList<>();
+        for (RankedPost post : fromDatabase(subredditId, sort, window, null, depth, key -> false)) {
+            posts.compute(post.postId(), (id, previous) -> {
+                RankedPost current = previous == null ? post : previous;
+                RankKey pushedOut = keys.fill(key(sort, current));
+                if (pushedOut != null) {
+                    evicted.add(pushedOut.postId());
+                }
+                return held(current) ? current : null;
+            });
+        }
+        release(evicted);
+    }
+
+    /**
+     * Reads up to {@code limit} posts ranked after the given key from the database, best first, scoring
+     * posts held in memory by their live counts and leaving out the ones {@code kept} already serves.
+     */
+    private List<RankedPost> fromDatabase(Long subredditId, FeedSort sort, TopWindow window, RankKey after,
+                                          int limit, Predicate<RankKey> kept) {
+        Comparator<RankedPost> order = Comparator.comparing(post -> key(sort, post));
+        // worst of the best so far at the head
+        PriorityQueue<RankedPost> best = new PriorityQueue<>(order.reversed());
+        if (sort == FeedSort.HOT) {
+            long bound = maxAbsVotes.get();
+            Instant before = after == null ? LATEST : min(RankedPost.createdBeforeForHotBelow(after.score(), bound));
+            long beforeId = Long.MAX_VALUE;
+            List<PostRankingRow> rows;
+            do {
+                rows = postRepository.findRankingRowsCreatedBefore(subredditId, before, beforeId,
+                        PageRequest.of(0, loadBatchSize));
+                offer(rows, sort, after, limit, kept, best);
+                if (!rows.isEmpty()) {
+                    PostRankingRow last = rows.get(rows.size() - 1);
+                    before = last.getCreatedDate();
+                    beforeId = last.getPostId();
+                }
+                // nothing created before the last row read can outscore this ceiling
+            } while (rows.size() == loadBatchSize
+                    && (best.size() < limit || best.peek().hotKey().score() <= RankedPost.hotCeiling(before, bound)));
+        } else {
+            Instant since = window.getLength() == null ? null : Instant.now().minus(window.getLength());
+            long votes = after == null ? Long.MAX_VALUE : (long) after.score();
+            long postId = after == null ? Long.MAX_VALUE : after.postId();
+            List<PostRankingRow> rows;
+            do {
+                rows = postRepository.findTopRankingRows(subredditId, since, votes, postId,
+                        PageRequest.of(0, loadBatchSize));
+                offer(rows, sort, after, limit, kept, best);
+                if (!rows.isEmpty()) {
+                    PostRankingRow last = rows.get(rows.size() - 1);
+                    votes = last.getVoteCount() == null ? 0 : last.getVoteCount();
+                    postId = last.getPostId();
+                }
+            } while (rows.size() == loadBatchSize && best.size() < limit);
+        }
+        List<RankedPost> found = new ArrayList<>(best);
+        found.sort(order);
+        return found;
+    }
+
+    private void offer(List<PostRankingRow> rows, FeedSort sort, RankKey after, int limit, Predicate<RankKey> kept,
+                       PriorityQueue<RankedPost> best) {
+        for (PostRankingRow row : rows) {
+            RankedPost tracked = posts.get(row.getPostId());
+            RankedPost post = tracked == null ? load(row) : tracked;
+            RankKey key = key(sort, post);
+            if ((after == null || key.compareTo(after) > 0) && !kept.test(key)) {
+                best.add(post);
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            }
+        }
+    }
+
+    private RankedPost load(PostRankingRow row) {
+        RankedPost post = new RankedPost(row.getPostId(), row.getSubredditId(), row.getCreatedDate(),
+                voteCountAggregator.currentCount(row.getPostId(), row.getVoteCount(), row.getRevision()));
+        maxAbsVotes.accumulateAndGet(Math.abs(post.voteCount()), Math::max);
+        return post;
+    }
+
+    private static RankKey key(FeedSort sort, RankedPost post) {
+        return sort == FeedSort.HOT ? post.hotKey() : post.topKey();
+    }
+
+    private static Instant min(Instant instant) {
+        return instant.isAfter(LATEST) ? LATEST : instant;
+    }
+}
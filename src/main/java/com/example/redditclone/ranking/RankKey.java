@@ -0,0 +1,35 @@
+package com.example.redditclone.ranking;
+
+import com.example.redditclone.exceptions.InvalidCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Comparator;
+
+/**
+ * Position of a post in a ranked list, highest score first and newest id first on ties.
+ */
+public record RankKey(double score, long postId) implements Comparable<RankKey> {
+
+    private static final Comparator<RankKey> ORDER = Comparator.comparingDouble(RankKey::score).reversed()
+            .thenComparing(Comparator.comparingLong(RankKey::postId).reversed());
+
+    @Override
+    public int compareTo(RankKey other) {
+        return ORDER.compare(this, other);
+    }
+
+    public String encode() {
+        String raw = Double.doubleToLongBits(score) + ":" + postId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static RankKey decode(String cursor) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":");
+            return new RankKey(Double.longBitsToDouble(Long.parseLong(parts[0])), Long.parseLong(parts[1]));
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            throw new InvalidCursorException("Invalid page cursor");
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.redditclone.ranking;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One ranked list, best first, holding at most {@code depth} keys. Once a key has been pushed out the
+ * list is truncated: it is then an exact prefix of the ranking, the rest is only in the database, and a
+ * key is admitted only if it sorts before the last one kept.
+ */
+class RankedKeys {
+
+    private final NavigableSet<RankKey> keys = new ConcurrentSkipListSet<>();
+    // ConcurrentSkipListSet.size() walks the whole set
+    private final AtomicInteger size = new AtomicInteger();
+    private final int depth;
+    private volatile boolean truncated;
+
+    RankedKeys(int depth) {
+        this.depth = depth;
+    }
+
+    /**
+     * Adds the key if it falls inside the kept prefix and returns the key it pushed out, if any.
+     */
+    RankKey add(RankKey key) {
+        if (truncated) {
+            RankKey last = keys.isEmpty() ? null : keys.last();
+            if (last == null || key.compareTo(last) > 0) {
+                return null;
+            }
+        }
+        return fill(key);
+    }
+
+    /**
+     * Adds the key even past the last one kept, for refilling from the database, and returns the key
+     * it pushed out, if any.
+     */
+    RankKey fill(RankKey key) {
+        if (!keys.add(key) || size.incrementAndGet() <= depth) {
+            return null;
+        }
+        RankKey evicted = keys.pollLast();
+        if (evicted != null) {
+            size.decrementAndGet();
+            truncated = true;
+        }
+        return evicted;
+    }
+
+    void remove(RankKey key) {
+        if (keys.remove(key)) {
+            size.decrementAndGet();
+        }
+    }
+
+    boolean contains(RankKey key) {
+        return keys.contains(key);
+    }
+
+    boolean truncated() {
+        return truncated;
+    }
+
+    // expired and sunk posts leave a truncated list, and nothing past its end can come back on its own
+    boolean depleted() {
+        return truncated && size.get() < depth / 2;
+    }
+
+    List<RankKey> page(RankKey after, int limit) {
+        NavigableSet<RankKey> from = after == null ? keys : keys.tailSet(after, false);
+        List<RankKey> page = new ArrayList<>(limit);
+        Iterator<RankKey> iterator = from.iterator();
+        while (iterator.hasNext() && page.size() < limit) {
+            page.add(iterator.next());
+        }
+        return page;
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.redditclone.ranking;
+
+import java.time.Instant;
+
+record RankedPost(long postId, Long subredditId, Instant createdDate, long voteCount) {
+
+    // 2005-12-08T07:46:43Z, the epoch of Reddit's original hot formula
+    private static final long HOT_EPOCH_SECONDS = 1134028003L;
+
+    // the vote term of a hot score is at most log10 of the largest vote count, in either direction
+    static double hotCeiling(Instant createdDate, long maxAbsVotes) {
+        return Math.log10(Math.max(maxAbsVotes, 1)) + (createdDate.getEpochSecond() - HOT_EPOCH_SECONDS) / 45000.0;
+    }
+
+    // a post can only score below the given hot score if it was created before this instant
+    static Instant createdBeforeForHotBelow(double score, long maxAbsVotes) {
+        double seconds = 45000 * (score + Math.log10(Math.max(maxAbsVotes, 1)));
+        return Instant.ofEpochSecond(HOT_EPOCH_SECONDS + (long) Math.ceil(seconds) + 1);
+    }
+
+    RankedPost withVotes(long delta) {
+        return new RankedPost(postId, subredditId, createdDate, voteCount + delta);
+    }
+
+    RankKey hotKey() {
+        double order = Math.log10(Math.max(Math.abs(voteCount), 1));
+        double seconds = createdDate.getEpochSecond() - HOT_EPOCH_SECONDS;
+        return new RankKey(Long.signum(voteCount) * order + seconds / 45000, postId);
+    }
+
+    RankKey topKey() {
+        return new RankKey(voteCount, postId);
+    }
+
+    boolean createdAfter(Instant cutoff) {
+        return createdDate.isAfter(cutoff);
+    }
+}
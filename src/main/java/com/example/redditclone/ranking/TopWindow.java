@@ -0,0 +1,17 @@
+package com.example.redditclone.ranking;
+
+import java.time.Duration;
+
+public enum TopWindow {
+    DAY(Duration.ofDays(1)), WEEK(Duration.ofDays(7)), ALL(null);
+
+    private final Duration length;
+
+    TopWindow(Duration length) {
+        this.length = length;
+    }
+
+    public Duration getLength() {
+        return length;
+    }
+}
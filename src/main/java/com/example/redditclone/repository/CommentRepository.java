@@ -1,17 +1,77 @@
 package com.example.redditclone.repository;
 
+import com.example.redditclone.dto.CommentNode;
+import com.example.redditclone.dto.CommentsDto;
 import com.example.redditclone.model.Comment;
-import com.example.redditclone.model.Post;
 import com.example.redditclone.model.User;
+import com.example.redditclone.search.SearchDocument;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface CommentRepository extends JpaRepository<Comment, Long> {
 
-    List<Comment> findByPost(Post post);
+    String DTO = "select new com.example.redditclone.dto.CommentsDto(c.id, c.post.postId, c.createdDate, c.text, " +
+            "u.username, c.parentId) from Comment c join c.user u ";
+
+    // MIN_VALUE makes Connector/J stream rows instead of buffering the whole result
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "" + Integer.MIN_VALUE))
+    @Query(DTO + "where c.user = :user order by c.createdDate asc, c.id asc")
+    Stream<CommentsDto> streamByUser(User user);
+
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "" + Integer.MIN_VALUE))
+    @Query("select new com.example.redditclone.search.SearchDocument('comment', c.id, p.postId, p.postName, " +
+            "c.text, u.username, s.name, c.createdDate) from Comment c join c.post p join c.user u join p.subreddit s")
+    Stream<SearchDocument> streamSearchDocuments();
+
+    @Query("select new com.example.redditclone.search.SearchDocument('comment', c.id, p.postId, p.postName, " +
+            "c.text, u.username, s.name, c.createdDate) from Comment c join c.post p join c.user u join p.subreddit s " +
+            "where c.id in :ids")
+    List<SearchDocument> findSearchDocuments(Collection<Long> ids);
+
+    @Query(DTO + "where c.post.postId = :postId order by c.createdDate desc, c.id desc")
+    List<CommentsDto> findNewest(Long postId, Pageable pageable);
+
+    @Query(DTO + "where c.post.postId = :postId and (c.createdDate < :createdDate " +
+            "or (c.createdDate = :createdDate and c.id < :id)) order by c.createdDate desc, c.id desc")
+    List<CommentsDto> findNewestBefore(Long postId, Instant createdDate, Long id, Pageable pageable);
+
+    @Query(DTO + "where c.post.postId = :postId order by c.createdDate asc, c.id asc")
+    List<CommentsDto> findOldest(Long postId, Pageable pageable);
+
+    @Query(DTO + "where c.post.postId = :postId and (c.createdDate > :createdDate " +
+            "or (c.createdDate = :createdDate and c.id > :id)) order by c.createdDate asc, c.id asc")
+    List<CommentsDto> findOldestAfter(Long postId, Instant createdDate, Long id, Pageable pageable);
 
     List<Comment> findAllByUser(User user);
+
+    @Query("select new com.example.redditclone.dto.CommentNode(c.id, c.parentId, c.createdDate, c.text, u.username, " +
+            "c.depth, c.replyCount) from Comment c join c.user u " +
+            "where c.post.postId = :postId and c.depth <= :maxDepth order by c.path")
+    List<CommentNode> findTree(Long postId, int maxDepth);
+
+    @Query("select new com.example.redditclone.dto.CommentNode(c.id, c.parentId, c.createdDate, c.text, u.username, " +
+            "c.depth, c.replyCount) from Comment c join c.user u " +
+            "where c.post.postId = :postId and c.path like concat(:pathPrefix, '%') and c.depth <= :maxDepth " +
+            "order by c.path")
+    List<CommentNode> findSubtree(Long postId, String pathPrefix, int maxDepth);
+
+    @Modifying
+    @Query("update Comment c set c.replyCount = coalesce(c.replyCount, 0) + :delta where c.id = :commentId")
+    int incrementReplyCount(Long commentId, int delta);
+
+    @Modifying
+    @Query(value = "update comment set path = concat(lpad(id, 12, '0'), '.'), depth = 0, reply_count = 0 " +
+            "where path is null", nativeQuery = true)
+    int backfillPaths();
 }
@@ -0,0 +1,28 @@
+package com.example.redditclone.repository;
+
+import com.example.redditclone.model.OutboxMail;
+import com.example.redditclone.model.OutboxStatus;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface OutboxMailRepository extends JpaRepository<OutboxMail, Long> {
+
+    // a lock timeout of -2 is Hibernate's SKIP LOCKED, so several dispatchers can drain the outbox side by side
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("select m from OutboxMail m where m.status = :status and m.nextAttemptAt <= :now order by m.id")
+    List<OutboxMail> findDue(OutboxStatus status, Instant now, Pageable pageable);
+
+    @Query("select m.id from OutboxMail m where m.status = :status and m.sentDate < :before order by m.id")
+    List<Long> findIdsSentBefore(OutboxStatus status, Instant before, Pageable pageable);
+}
@@ -1,18 +1,121 @@
 package com.example.redditclone.repository;
 
+import com.example.redditclone.dto.PostSummary;
+import com.example.redditclone.dto.SubredditPostCount;
 import com.example.redditclone.model.Post;
 import com.example.redditclone.model.Subreddit;
 import com.example.redditclone.model.User;
+import com.example.redditclone.ranking.PostRankingRow;
+import com.example.redditclone.search.SearchDocument;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
-import javax.swing.text.html.Option;
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface PostRepository extends JpaRepository<Post, Long> {
-    Optional<List<Post>> findAllBySubreddit(Subreddit subreddit);
 
-    Optional<List<Post>> findByUser(User user);
+    String SUMMARY = "select new com.example.redditclone.dto.PostSummary(p.postId, p.postName, p.url, " +
+            "p.description, u.username, s.name, p.voteCount, p.commentCount, p.createdDate, coalesce(p.revision, 0)) " +
+            "from Post p join p.user u join p.subreddit s ";
+
+    @Query(SUMMARY + "where p.postId = :postId")
+    Optional<PostSummary> findSummaryById(Long postId);
+
+    @Query(SUMMARY + "where p.postId in :postIds")
+    List<PostSummary> findSummariesByIdIn(Collection<Long> postIds);
+
+    @Query(SUMMARY + "order by p.createdDate desc, p.postId desc")
+    List<PostSummary> findLatest(Pageable pageable);
+
+    @Query(SUMMARY + "where p.createdDate < :createdDate " +
+            "or (p.createdDate = :createdDate and p.postId < :postId) " +
+            "order by p.createdDate desc, p.postId desc")
+    List<PostSummary> findLatestBefore(Instant createdDate, Long postId, Pageable pageable);
+
+    @Query(SUMMARY + "where p.subreddit = :subreddit order by p.createdDate desc, p.postId desc")
+    List<PostSummary> findLatestBySubreddit(Subreddit subreddit, Pageable pageable);
+
+    @Query(SUMMARY + "where p.subreddit = :subreddit and (p.createdDate < :createdDate " +
+            "or (p.createdDate = :createdDate and p.postId < :postId)) " +
+            "order by p.createdDate desc, p.postId desc")
+    List<PostSummary> findLatestBySubredditBefore(Subreddit subreddit, Instant createdDate, Long postId, Pageable pageable);
+
+    // MIN_VALUE makes Connector/J stream rows instead of buffering the whole result
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "" + Integer.MIN_VALUE))
+    @Query(SUMMARY + "where p.user = :user order by p.createdDate asc, p.postId asc")
+    Stream<PostSummary> streamByUser(User user);
+
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "" + Integer.MIN_VALUE))
+    @Query("select new com.example.redditclone.search.SearchDocument('post', p.postId, p.postId, p.postName, " +
+            "p.description, u.username, s.name, p.createdDate) from Post p join p.user u join p.subreddit s")
+    Stream<SearchDocument> streamSearchDocuments();
+
+    @Query(SUMMARY + "where p.user = :user order by p.createdDate desc, p.postId desc")
+    List<PostSummary> findLatestByUser(User user, Pageable pageable);
+
+    @Query(SUMMARY + "where p.user = :user and (p.createdDate < :createdDate " +
+            "or (p.createdDate = :createdDate and p.postId < :postId)) " +
+            "order by p.createdDate desc, p.postId desc")
+    List<PostSummary> findLatestByUserBefore(User user, Instant createdDate, Long postId, Pageable pageable);
+
+    @Query("select p.subreddit.id as subredditId, count(p) as postCount from Post p group by p.subreddit.id")
+    List<SubredditPostCount> countPostsBySubreddit();
+
+    @Query("select p.postId as postId, p.subreddit.id as subredditId, p.createdDate as createdDate, " +
+            "p.voteCount as voteCount, p.revision as revision from Post p where p.postId > :afterId " +
+            "order by p.postId asc")
+    List<PostRankingRow> findRankingRowsAfter(Long afterId, Pageable page);
+
+    @Query("select p.postId as postId, p.subreddit.id as subredditId, p.createdDate as createdDate, " +
+            "p.voteCount as voteCount, p.revision as revision from Post p where p.postId = :postId")
+    Optional<PostRankingRow> findRankingRow(Long postId);
+
+    // top pages past the depth kept in memory
+    @Query("select p.postId as postId, p.subreddit.id as subredditId, p.createdDate as createdDate, " +
+            "p.voteCount as voteCount, p.revision as revision from Post p " +
+            "where (:subredditId is null or p.subreddit.id = :subredditId) " +
+            "and (:since is null or p.createdDate > :since) " +
+            "and (coalesce(p.voteCount, 0) < :votes or (coalesce(p.voteCount, 0) = :votes and p.postId < :postId)) " +
+            "order by coalesce(p.voteCount, 0) desc, p.postId desc")
+    List<PostRankingRow> findTopRankingRows(Long subredditId, Instant since, long votes, long postId, Pageable page);
+
+    // hot pages past the depth kept in memory are scored from posts read newest first
+    @Query("select p.postId as postId, p.subreddit.id as subredditId, p.createdDate as createdDate, " +
+            "p.voteCount as voteCount, p.revision as revision from Post p " +
+            "where (:subredditId is null or p.subreddit.id = :subredditId) " +
+            "and (p.createdDate < :before or (p.createdDate = :before and p.postId < :beforeId)) " +
+            "order by p.createdDate desc, p.postId desc")
+    List<PostRankingRow> findRankingRowsCreatedBefore(Long subredditId, Instant before, long beforeId, Pageable page);
+
+    @Query("select coalesce(p.revision, 0) from Post p where p.postId = :postId")
+    Optional<Long> findRevision(Long postId);
+
+    @Query("select coalesce(p.commentCount, 0) from Post p where p.postId = :postId")
+    Optional<Integer> findCommentCount(Long postId);
+
+    @Modifying
+    @Query("update Post p set p.commentCount = coalesce(p.commentCount, 0) + :delta, " +
+            "p.revision = coalesce(p.revision, 0) + 1 where p.postId = :postId")
+    int incrementCommentCount(Long postId, int delta);
+
+    @Modifying
+    @Query("update Post p set p.commentCount = (select count(c) from Comment c where c.post = p), " +
+            "p.revision = coalesce(p.revision, 0) + 1 " +
+            "where p.commentCount is null or p.commentCount <> (select count(c) from Comment c where c.post = p)")
+    int recountComments();
+
+    @Modifying
+    @Query("update Post p set p.commentCount = (select count(c) from Comment c where c.post = p), " +
+            "p.revision = coalesce(p.revision, 0) + 1 where p.commentCount is null")
+    int backfillCommentCounts();
 }
@@ -1,14 +1,30 @@
 package com.example.redditclone.repository;
 
-import com.example.redditclone.model.Post;
-import com.example.redditclone.model.User;
 import com.example.redditclone.model.Vote;
+import com.example.redditclone.model.VoteType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
-import java.util.Optional;
-
 @Repository
 public interface VoteRepository extends JpaRepository<Vote, Long> {
-    Optional<Vote> findTopByPostAndUserOrderByVoteIdDesc(Post post, User currentUser);
+
+    // each statement hits the (postId, userId) unique key, which VoteKeyEnforcer guarantees at startup,
+    // and reports through its row count whether the vote changed
+
+    @Modifying
+    @Query("update Vote v set v.voteType = :voteType " +
+            "where v.post.postId = :postId and v.user.userId = :userId and v.voteType <> :voteType")
+    int flipVote(Long postId, Long userId, VoteType voteType);
+
+    // IGNORE also swallows foreign key errors, so a zero count is only "already voted" once both rows are known to exist
+    @Modifying
+    @Query(value = "insert ignore into vote (post_id, user_id, vote_type) values (:postId, :userId, :voteType)",
+            nativeQuery = true)
+    int insertVote(Long postId, Long userId, int voteType);
+
+    @Modifying
+    @Query("delete from Vote v where v.post.postId = :postId and v.user.userId = :userId and v.voteType = :voteType")
+    int clearVote(Long postId, Long userId, VoteType voteType);
 }
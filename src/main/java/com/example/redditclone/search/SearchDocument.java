@@ -0,0 +1,18 @@
+package com.example.redditclone.search;
+
+import java.time.Instant;
+
+/**
+ * Text of a post or comment as it goes into the search index. For comments the title is the
+ * title of the post they belong to; it is stored for display but not searched.
+ */
+public record SearchDocument(String type, Long id, Long postId, String title, String body,
+                             String author, String subreddit, Instant createdDate) {
+
+    public static final String POST = "post";
+    public static final String COMMENT = "comment";
+
+    public String key() {
+        return type + ":" + id;
+    }
+}
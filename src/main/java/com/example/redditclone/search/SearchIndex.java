@@ -0,0 +1,207 @@
+package com.example.redditclone.search;
+
+import com.example.redditclone.dto.SearchResult;
+import com.example.redditclone.exceptions.InvalidSearchQueryException;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.queryparser.classic.MultiFieldQueryParser;
+import org.apache.lucene.queryparser.classic.ParseException;
+import org.apache.lucene.queryparser.classic.QueryParserBase;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.ControlledRealTimeReopenThread;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lucene index over post titles, post descriptions and comment text, kept in a local directory.
+ * Writes go straight to the shared {@link IndexWriter}; a reopen thread refreshes the searcher so
+ * new documents become visible within the configured staleness, without waiting for a commit.
+ */
+@Component
+@Slf4j
+public class SearchIndex implements DisposableBean {
+
+    private static final String KEY = "key";
+    private static final String TYPE = "type";
+    private static final String ID = "id";
+    private static final String POST_ID = "postId";
+    private static final String TITLE = "title";
+    private static final String BODY = "body";
+    private static final String AUTHOR = "author";
+    private static final String SUBREDDIT = "subreddit";
+    private static final String CREATED = "createdDate";
+    private static final String GENERATION = "generation";
+
+    private static final String[] SEARCH_FIELDS = {TITLE, BODY};
+    private static final Map<String, Float> BOOSTS = Map.of(TITLE, 2f, BODY, 1f);
+
+    private final Analyzer analyzer = new StandardAnalyzer();
+    private final Directory directory;
+    private final IndexWriter writer;
+    private final SearcherManager searcherManager;
+    private final ControlledRealTimeReopenThread<IndexSearcher> reopenThread;
+    // stamped on every write, so a rebuild can drop what it did not rewrite
+    private volatile long generation;
+
+    public SearchIndex(@Value("${reddit.search.index-dir}") Path indexDir,
+                       @Value("${reddit.search.max-staleness}") Duration maxStaleness) throws IOException {
+        this.directory = FSDirectory.open(indexDir);
+        this.writer = new IndexWriter(directory, new IndexWriterConfig(analyzer)
+                .setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND));
+        this.searcherManager = new SearcherManager(writer, null);
+        double maxStaleSec = maxStaleness.toMillis() / 1000.0;
+        this.reopenThread = new ControlledRealTimeReopenThread<>(writer, searcherManager, maxStaleSec,
+                Math.min(0.025, maxStaleSec));
+        reopenThread.setName("search-reopen");
+        reopenThread.setDaemon(true);
+        reopenThread.start();
+    }
+
+    public void index(SearchDocument document) {
+        try {
+            writer.updateDocument(new Term(KEY, document.key()), toLucene(document));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Starts a new generation; documents written from now on, by a rebuild or by live updates, carry it.
+     */
+    public synchronized long nextGeneration() {
+        generation = Math.max(generation + 1, System.currentTimeMillis());
+        return generation;
+    }
+
+    /**
+     * Deletes every document written before the given generation.
+     */
+    public void deleteOlderThan(long generation) throws IOException {
+        writer.deleteDocuments(new BooleanQuery.Builder()
+                .add(new MatchAllDocsQuery(), BooleanClause.Occur.MUST)
+                .add(LongPoint.newRangeQuery(GENERATION, generation, Long.MAX_VALUE), BooleanClause.Occur.MUST_NOT)
+                .build());
+    }
+
+    public boolean isEmpty() throws IOException {
+        IndexSearcher searcher = searcherManager.acquire();
+        try {
+            return searcher.getIndexReader().numDocs() == 0;
+        } finally {
+            searcherManager.release(searcher);
+        }
+    }
+
+    public List<SearchResult> search(String text, String subreddit, String author, String type, int size) {
+        BooleanQuery.Builder query = new BooleanQuery.Builder().add(parse(text), BooleanClause.Occur.MUST);
+        filter(query, SUBREDDIT, subreddit);
+        filter(query, AUTHOR, author);
+        filter(query, TYPE, type);
+        try {
+            IndexSearcher searcher = searcherManager.acquire();
+            try {
+                List<SearchResult> results = new ArrayList<>();
+                for (ScoreDoc hit : searcher.search(query.build(), size).scoreDocs) {
+                    Document doc = searcher.doc(hit.doc);
+                    results.add(new SearchResult(doc.get(TYPE),
+                            doc.getField(ID).numericValue().longValue(),
+                            doc.getField(POST_ID).numericValue().longValue(),
+                            doc.get(TITLE), doc.get(AUTHOR), doc.get(SUBREDDIT),
+                            Instant.ofEpochMilli(doc.getField(CREATED).numericValue().longValue()),
+                            hit.score));
+                }
+                return results;
+            } finally {
+                searcherManager.release(searcher);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${reddit.search.commit-interval}")
+    public void commit() throws IOException {
+        if (writer.hasUncommittedChanges()) {
+            writer.commit();
+        }
+    }
+
+    @Override
+    public void destroy() throws IOException {
+        reopenThread.close();
+        searcherManager.close();
+        writer.close();
+        directory.close();
+    }
+
+    // user input is parsed as query syntax when it can be, and searched as plain words when it can't
+    private Query parse(String text) {
+        MultiFieldQueryParser parser = new MultiFieldQueryParser(SEARCH_FIELDS, analyzer, BOOSTS);
+        try {
+            return parser.parse(text);
+        } catch (ParseException e) {
+            try {
+                return parser.parse(QueryParserBase.escape(text));
+            } catch (ParseException again) {
+                throw new InvalidSearchQueryException("Invalid search query: " + text);
+            }
+        }
+    }
+
+    private void filter(BooleanQuery.Builder query, String field, String value) {
+        if (value != null && !value.isBlank()) {
+            query.add(new TermQuery(new Term(field, value)), BooleanClause.Occur.FILTER);
+        }
+    }
+
+    private Document toLucene(SearchDocument document) {
+        Document doc = new Document();
+        doc.add(new StringField(KEY, document.key(), Field.Store.NO));
+        doc.add(new StringField(TYPE, document.type(), Field.Store.YES));
+        doc.add(new StoredField(ID, document.id()));
+        doc.add(new StoredField(POST_ID, document.postId()));
+        if (SearchDocument.POST.equals(document.type())) {
+            doc.add(new TextField(TITLE, document.title(), Field.Store.YES));
+        } else {
+            doc.add(new StoredField(TITLE, document.title()));
+        }
+        if (document.body() != null) {
+            doc.add(new TextField(BODY, document.body(), Field.Store.NO));
+        }
+        doc.add(new StringField(AUTHOR, document.author(), Field.Store.YES));
+        doc.add(new StringField(SUBREDDIT, document.subreddit(), Field.Store.YES));
+        doc.add(new StoredField(CREATED, document.createdDate().toEpochMilli()));
+        doc.add(new LongPoint(GENERATION, generation));
+        return doc;
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.redditclone.search;
+
+import com.example.redditclone.dto.SearchResult;
+import com.example.redditclone.repository.CommentRepository;
+import com.example.redditclone.repository.PostRepository;
+import com.example.redditclone.service.AfterCommit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+@Service
+@Slf4j
+public class SearchService {
+
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    public static final int MAX_PAGE_SIZE = 100;
+
+    private final SearchIndex searchIndex;
+    private final PostRepository postRepository;
+    private final CommentRepository commentRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final boolean rebuildOnStartup;
+
+    public SearchService(SearchIndex searchIndex, PostRepository postRepository, CommentRepository commentRepository,
+                         PlatformTransactionManager transactionManager,
+                         @Value("${reddit.search.rebuild-on-startup}") boolean rebuildOnStartup) {
+        this.searchIndex = searchIndex;
+        this.postRepository = postRepository;
+        this.commentRepository = commentRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.rebuildOnStartup = rebuildOnStartup;
+    }
+
+    public List<SearchResult> search(String query, String subreddit, String author, String type, int size) {
+        if (query == null || query.isBlank()) {
+            return List.of();
+        }
+        return searchIndex.search(query, subreddit, author, type, Math.max(1, Math.min(size, MAX_PAGE_SIZE)));
+    }
+
+    /**
+     * Queues the document for indexing once the surrounding transaction commits.
+     */
+    public void indexAfterCommit(SearchDocument document) {
+        AfterCommit.run(() -> {
+            try {
+                searchIndex.index(document);
+            } catch (RuntimeException e) {
+                // the next rebuild picks it up; a failed index write must not fail the request
+                log.warn("Could not index {}", document.key(), e);
+            }
+        });
+    }
+
+    /**
+     * Indexes the given comments once the surrounding transaction commits, loading them batchSize at a time.
+     */
+    public void indexCommentsAfterCommit(List<Long> commentIds, int batchSize) {
+        AfterCommit.run(() -> {
+            for (int from = 0; from < commentIds.size(); from += batchSize) {
+                List<Long> batch = commentIds.subList(from, Math.min(from + batchSize, commentIds.size()));
+                try {
+                    commentRepository.findSearchDocuments(batch).forEach(searchIndex::index);
+                } catch (RuntimeException e) {
+                    log.warn("Could not index {} imported comments", batch.size(), e);
+                }
+            }
+        });
+    }
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIfNeeded() throws IOException {
+        if (rebuildOnStartup || searchIndex.isEmpty()) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Rewrites the whole index from the database, streaming posts and comments row by row, then drops
+     * whatever the rewrite did not touch. Searches keep finding the old documents until they are replaced.
+     */
+    public void rebuild() throws IOException {
+        long start = System.currentTimeMillis();
+        long generation = searchIndex.nextGeneration();
+        long posts = readOnlyTransaction.execute(status -> indexAll(postRepository.streamSearchDocuments()));
+        long comments = readOnlyTransaction.execute(status -> indexAll(commentRepository.streamSearchDocuments()));
+        searchIndex.deleteOlderThan(generation);
+        searchIndex.commit();
+        log.info("Rebuilt search index with {} posts and {} comments in {} ms", posts, comments,
+                System.currentTimeMillis() - start);
+    }
+
+    private long indexAll(Stream<SearchDocument> documents) {
+        long count = 0;
+        try (documents) {
+            Iterator<SearchDocument> iterator = documents.iterator();
+            while (iterator.hasNext()) {
+                searchIndex.index(iterator.next());
+                count++;
+            }
+        }
+        return count;
+    }
+}
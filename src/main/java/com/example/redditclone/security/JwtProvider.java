@@ -1,10 +1,12 @@
 package com.example.redditclone.security;
 
 //import com.example.redditclone.model.User;
+import com.example.redditclone.config.JwtSigningProperties;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.User;
+import org.springframework.security.oauth2.jwt.JwsHeader;
 import org.springframework.security.oauth2.jwt.JwtClaimsSet;
 import org.springframework.security.oauth2.jwt.JwtEncoder;
 import org.springframework.security.oauth2.jwt.JwtEncoderParameters;
@@ -18,6 +20,7 @@ import java.time.Instant;
 public class JwtProvider {
 
     private final JwtEncoder jwtEncoder;
+    private final JwtSigningProperties jwtSigning;
 
     public String generateToken(Authentication authentication){
         User principal = (User) authentication.getPrincipal();
@@ -33,7 +36,8 @@ public class JwtProvider {
                 .claim("scope", "ROLE_USER")
                 .build();
 
-        return this.jwtEncoder.encode(JwtEncoderParameters.from(claims)).getTokenValue();
+        JwsHeader header = JwsHeader.with(jwtSigning.algorithm()).build();
+        return this.jwtEncoder.encode(JwtEncoderParameters.from(header, claims)).getTokenValue();
     }
 
     public long getJwtExpirationInMillis() {
@@ -0,0 +1,34 @@
+package com.example.redditclone.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+public class UserIdCache {
+
+    private final Cache<String, Long> userIds;
+
+    public UserIdCache(@Value("${reddit.current-user.cache.max-size}") long maxSize,
+                       @Value("${reddit.current-user.cache.ttl}") Duration ttl) {
+        this.userIds = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    public Long get(String username) {
+        return userIds.getIfPresent(username);
+    }
+
+    public void put(String username, Long userId) {
+        userIds.put(username, userId);
+    }
+
+    public void evict(String username) {
+        userIds.invalidate(username);
+    }
+}
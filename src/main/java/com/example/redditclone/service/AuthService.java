@@ -12,16 +12,20 @@ import com.example.redditclone.repository.RefreshTokenRepository;
 import com.example.redditclone.repository.UserRepository;
 import com.example.redditclone.repository.VerificationTokenRepository;
 import com.example.redditclone.security.JwtProvider;
+import com.example.redditclone.security.UserIdCache;
 import jakarta.transaction.Transactional;
 import lombok.AllArgsConstructor;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserCache;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
 
 import java.time.Instant;
 import java.util.Optional;
@@ -30,13 +34,18 @@ import java.util.UUID;
 @Service
 @AllArgsConstructor
 public class AuthService {
+    private static final String CURRENT_USER_ATTRIBUTE = AuthService.class.getName() + ".currentUser";
+
     private final PasswordEncoder passwordEncoder;
     private final UserRepository userRepository;
     private final VerificationTokenRepository verificationTokenRepository;
     private final MailService mailService;
+    private final MailContentBuilder mailContentBuilder;
     private final AuthenticationManager authenticationManager;
     private final JwtProvider jwtProvider;
     private final RefreshTokenService refreshTokenService;
+    private final UserIdCache userIdCache;
+    private final UserCache userCache;
 
     @Transactional
     public void signup(RegisterRequest registerRequest){
@@ -49,10 +58,11 @@ public class AuthService {
         userRepository.save(user);
 
         String token = generateVerificationToken(user);
-        mailService.sendMail(new NotificationEmail("Please Activate your Account", user.getEmail(), "Thank you signing up to Spring Reddit, "
+        mailService.sendMail(new NotificationEmail("Please Activate your Account", user.getEmail(),
+                mailContentBuilder.build("Thank you signing up to Spring Reddit, "
                 + "please click on the below url to activate your account : "
                 + "http://localhost:8081/api/auth/accountVerification/"
-                + token));
+                + token)));
     }
 
     private String generateVerificationToken(User user){
@@ -73,10 +83,32 @@ public class AuthService {
     }
     @Transactional()
     public User getCurrentUser() {
+        RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+        if (requestAttributes != null) {
+            User user = (User) requestAttributes.getAttribute(CURRENT_USER_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+            if (user != null) {
+                return user;
+            }
+        }
         Jwt principal = (Jwt) SecurityContextHolder.
                 getContext().getAuthentication().getPrincipal();
-        return userRepository.findByUsername(principal.getSubject())
-                .orElseThrow(() -> new UsernameNotFoundException("User name not found - " + principal.getSubject()));
+        User user = resolveUser(principal.getSubject());
+        if (requestAttributes != null) {
+            requestAttributes.setAttribute(CURRENT_USER_ATTRIBUTE, user, RequestAttributes.SCOPE_REQUEST);
+        }
+        return user;
+    }
+
+    // a known id only needs a reference proxy, so the user row is not read unless a field other than the id is used
+    private User resolveUser(String username) {
+        Long userId = userIdCache.get(username);
+        if (userId != null) {
+            return userRepository.getReferenceById(userId);
+        }
+        User user = userRepository.findByUsername(username)
+                .orElseThrow(() -> new UsernameNotFoundException("User name not found - " + username));
+        userIdCache.put(username, user.getUserId());
+        return user;
     }
 
     @Transactional
@@ -85,6 +117,7 @@ public class AuthService {
         User user = userRepository.findByUsername(username).orElseThrow(() -> new SpringRedditException("User not found with name - " + username));
         user.setEnabled(true);
         userRepository.save(user);
+        AfterCommit.run(() -> userCache.removeUserFromCache(username));
     }
 
     public AuthenticationResponse login(LoginRequest loginRequest) {
@@ -0,0 +1,195 @@
+package com.example.redditclone.service;
+
+import com.example.redditclone.dto.CommentImport;
+import com.example.redditclone.dto.VoteImport;
+import com.example.redditclone.exceptions.CommentNotFoundException;
+import com.example.redditclone.exceptions.SpringRedditException;
+import com.example.redditclone.model.Comment;
+import com.example.redditclone.model.VoteType;
+import com.example.redditclone.ranking.PostRankingService;
+import com.example.redditclone.repository.CommentRepository;
+import com.example.redditclone.repository.PostRepository;
+import com.example.redditclone.repository.UserRepository;
+import com.example.redditclone.search.SearchService;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Writes large numbers of comments and votes for imports and write-behind flushes. Rows go out in
+ * JDBC batches of reddit.ingest.batch-size, which the driver rewrites into multi-row statements, and
+ * the denormalized counters are adjusted once per post rather than once per row.
+ */
+@Service
+@Slf4j
+public class BulkIngestionService {
+
+    private static final String UPSERT_VOTE = "insert into vote (post_id, user_id, vote_type) values (?, ?, ?) " +
+            "on duplicate key update vote_type = values(vote_type)";
+
+    private final EntityManager entityManager;
+    private final JdbcTemplate jdbcTemplate;
+    private final CommentRepository commentRepository;
+    private final PostRepository postRepository;
+    private final UserRepository userRepository;
+    private final VoteCountAggregator voteCountAggregator;
+    private final PostRankingService postRankingService;
+    private final SearchService searchService;
+    private final int batchSize;
+
+    public BulkIngestionService(EntityManager entityManager, JdbcTemplate jdbcTemplate,
+                                CommentRepository commentRepository, PostRepository postRepository,
+                                UserRepository userRepository, VoteCountAggregator voteCountAggregator,
+                                PostRankingService postRankingService, SearchService searchService,
+                                @Value("${reddit.ingest.batch-size}") int batchSize) {
+        this.entityManager = entityManager;
+        this.jdbcTemplate = jdbcTemplate;
+        this.commentRepository = commentRepository;
+        this.postRepository = postRepository;
+        this.userRepository = userRepository;
+        this.voteCountAggregator = voteCountAggregator;
+        this.postRankingService = postRankingService;
+        this.searchService = searchService;
+        this.batchSize = batchSize;
+    }
+
+    @Transactional
+    public int importComments(List<CommentImport> imports) {
+        entityManager.unwrap(Session.class).setJdbcBatchSize(batchSize);
+        Map<Long, Comment> parents = commentRepository.findAllById(imports.stream()
+                        .map(CommentImport::getParentId)
+                        .filter(Objects::nonNull)
+                        .collect(Collectors.toSet()))
+                .stream()
+                .collect(Collectors.toMap(Comment::getId, Function.identity()));
+
+        Map<Long, Integer> commentsPerPost = new HashMap<>();
+        Map<Long, Integer> repliesPerParent = new HashMap<>();
+        List<Long> commentIds = new ArrayList<>(imports.size());
+        int pending = 0;
+        for (CommentImport row : imports) {
+            Comment parent = null;
+            if (row.getParentId() != null) {
+                parent = parents.get(row.getParentId());
+                if (parent == null) {
+                    throw new CommentNotFoundException(row.getParentId().toString());
+                }
+                if (!parent.getPost().getPostId().equals(row.getPostId())) {
+                    throw new SpringRedditException("Parent comment belongs to another post");
+                }
+                if (parent.getDepth() >= CommentsService.MAX_DEPTH) {
+                    throw new SpringRedditException("Maximum reply depth reached");
+                }
+                repliesPerParent.merge(parent.getId(), 1, Integer::sum);
+            }
+            Comment comment = Comment.builder()
+                    .post(postRepository.getReferenceById(row.getPostId()))
+                    .user(userRepository.getReferenceById(row.getUserId()))
+                    .text(row.getText())
+                    .createdDate(row.getCreatedDate() == null ? Instant.now() : row.getCreatedDate())
+                    .parentId(parent == null ? null : parent.getId())
+                    .depth(parent == null ? 0 : parent.getDepth() + 1)
+                    .replyCount(0)
+                    .build();
+            Comment created = commentRepository.save(comment);
+            created.setPath((parent == null ? "" : parent.getPath()) + CommentsService.pathSegment(created.getId()));
+            commentsPerPost.merge(row.getPostId(), 1, Integer::sum);
+            commentIds.add(created.getId());
+
+            // keeps the persistence context from growing with the import
+            if (++pending == batchSize) {
+                entityManager.flush();
+                entityManager.clear();
+                pending = 0;
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        repliesPerParent.forEach(commentRepository::incrementReplyCount);
+        commentsPerPost.forEach(postRepository::incrementCommentCount);
+        searchService.indexCommentsAfterCommit(commentIds, batchSize);
+        log.info("Imported {} comments on {} posts", imports.size(), commentsPerPost.size());
+        return imports.size();
+    }
+
+    /**
+     * Upserts votes; the last vote wins when the same user appears twice for a post. Returns how many
+     * votes were new or changed direction.
+     */
+    @Transactional
+    public int importVotes(List<VoteImport> imports) {
+        Map<VoteKey, VoteType> latest = new LinkedHashMap<>();
+        for (VoteImport row : imports) {
+            latest.put(new VoteKey(row.getPostId(), row.getUserId()), row.getVoteType());
+        }
+
+        Map<Long, Long> deltaPerPost = new HashMap<>();
+        List<Map.Entry<VoteKey, VoteType>> votes = new ArrayList<>(latest.entrySet());
+        int changed = 0;
+        for (int from = 0; from < votes.size(); from += batchSize) {
+            List<Map.Entry<VoteKey, VoteType>> chunk = votes.subList(from, Math.min(from + batchSize, votes.size()));
+            Map<VoteKey, VoteType> existing = findExisting(chunk);
+            List<Map.Entry<VoteKey, VoteType>> writes = new ArrayList<>(chunk.size());
+            for (Map.Entry<VoteKey, VoteType> vote : chunk) {
+                VoteType previous = existing.get(vote.getKey());
+                if (previous == vote.getValue()) {
+                    continue;
+                }
+                int direction = vote.getValue().getDirection();
+                deltaPerPost.merge(vote.getKey().postId(), (long) (previous == null ? direction : 2 * direction), Long::sum);
+                writes.add(vote);
+            }
+            jdbcTemplate.batchUpdate(UPSERT_VOTE, writes, batchSize, (ps, vote) -> {
+                ps.setLong(1, vote.getKey().postId());
+                ps.setLong(2, vote.getKey().userId());
+                ps.setInt(3, vote.getValue().ordinal());
+            });
+            changed += writes.size();
+        }
+
+        deltaPerPost.forEach(voteCountAggregator::add);
+        AfterCommit.run(() -> deltaPerPost.forEach(postRankingService::onVote));
+        log.info("Imported {} votes, {} new or changed", imports.size(), changed);
+        return changed;
+    }
+
+    private Map<VoteKey, VoteType> findExisting(List<Map.Entry<VoteKey, VoteType>> chunk) {
+        if (chunk.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        String pairs = String.join(", ", Collections.nCopies(chunk.size(), "(?, ?)"));
+        Object[] args = new Object[chunk.size() * 2];
+        for (int i = 0; i < chunk.size(); i++) {
+            args[2 * i] = chunk.get(i).getKey().postId();
+            args[2 * i + 1] = chunk.get(i).getKey().userId();
+        }
+        Map<VoteKey, VoteType> existing = new HashMap<>();
+        // locked until commit, so a concurrent import or vote cannot change a row between this read and the upsert,
+        // and the deltas below stay exact
+        jdbcTemplate.query("select post_id, user_id, vote_type from vote where (post_id, user_id) in (" + pairs + ") " +
+                        "for update",
+                (RowCallbackHandler) rs -> existing.put(new VoteKey(rs.getLong(1), rs.getLong(2)),
+                        VoteType.values()[rs.getInt(3)]), args);
+        return existing;
+    }
+
+    private record VoteKey(Long postId, Long userId) {
+    }
+}
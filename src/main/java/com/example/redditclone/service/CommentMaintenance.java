@@ -0,0 +1,46 @@
+package com.example.redditclone.service;
+
+import com.example.redditclone.repository.CommentRepository;
+import com.example.redditclone.repository.PostRepository;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+@Service
+@AllArgsConstructor
+@Slf4j
+public class CommentMaintenance {
+
+    private final PostRepository postRepository;
+    private final CommentRepository commentRepository;
+
+    @Scheduled(cron = "${reddit.comments.count-repair-cron}")
+    @Transactional
+    public void recountComments() {
+        int updated = postRepository.recountComments();
+        log.info("Recounted comments for {} posts", updated);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void backfillCommentCounts() {
+        int updated = postRepository.backfillCommentCounts();
+        if (updated > 0) {
+            log.info("Backfilled comment counts for {} posts", updated);
+        }
+    }
+
+    // comments written before threading existed become top-level comments
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void backfillCommentPaths() {
+        int updated = commentRepository.backfillPaths();
+        if (updated > 0) {
+            log.info("Backfilled thread paths for {} comments", updated);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.redditclone.service;
+
+import com.example.redditclone.model.NotificationEmail;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Merges comment notifications per recipient. The first comment is mailed right away and opens a window;
+ * comments arriving inside the window are collected and sent as one digest when it closes.
+ */
+@Service
+@Slf4j
+public class CommentNotificationCoalescer {
+
+    private final MailService mailService;
+    private final MailContentBuilder mailContentBuilder;
+    private final Duration window;
+    private final int maxDigestSize;
+    private final Map<String, Digest> digests = new ConcurrentHashMap<>();
+
+    public CommentNotificationCoalescer(MailService mailService, MailContentBuilder mailContentBuilder,
+                                        @Value("${reddit.notifications.window}") Duration window,
+                                        @Value("${reddit.notifications.max-digest-size}") int maxDigestSize) {
+        this.mailService = mailService;
+        this.mailContentBuilder = mailContentBuilder;
+        this.window = window;
+        this.maxDigestSize = maxDigestSize;
+    }
+
+    /**
+     * Called inside the comment's transaction: an immediate mail is queued in it and commits or rolls back
+     * with the comment. A buffered comment joins the digest only once it commits, and a window opened by a
+     * comment that rolls back is closed again.
+     */
+    public void commentAdded(String recipientEmail, String recipientName, String commenter, String postName) {
+        String line = commenter + " commented on your post \"" + postName + "\"";
+        Instant now = Instant.now();
+        Digest[] opened = new Digest[1];
+        digests.compute(recipientEmail, (email, digest) -> {
+            if (digest == null) {
+                opened[0] = new Digest(recipientName, now.plus(window));
+                return opened[0];
+            }
+            return digest;
+        });
+        if (opened[0] == null) {
+            AfterCommit.run(() -> digests.compute(recipientEmail, (email, digest) -> {
+                Digest target = digest == null ? new Digest(recipientName, Instant.now().plus(window)) : digest;
+                target.add(line, maxDigestSize);
+                return target;
+            }));
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        digests.computeIfPresent(recipientEmail, (email, digest) ->
+                                digest == opened[0] && digest.total == 0 ? null : digest);
+                    }
+                }
+            });
+        }
+        mailService.sendMail(new NotificationEmail(commenter + " Commented on your post", recipientEmail,
+                mailContentBuilder.build(line)));
+    }
+
+    @Scheduled(fixedDelayString = "${reddit.notifications.flush-interval}")
+    public void flushDue() {
+        Instant now = Instant.now();
+        Map<String, Digest> due = new HashMap<>();
+        for (String email : digests.keySet()) {
+            digests.computeIfPresent(email, (key, digest) -> {
+                if (digest.windowEnd.isAfter(now)) {
+                    return digest;
+                }
+                if (digest.total == 0) {
+                    return null;
+                }
+                due.put(email, digest);
+                // keep the window open while comments keep coming, so a busy author gets at most one mail per window
+                return new Digest(digest.username, now.plus(window));
+            });
+        }
+        due.forEach((email, digest) -> mailService.sendMail(new NotificationEmail(digest.total + " new comments on your posts",
+                email, mailContentBuilder.buildDigest(digest.username, digest.lines, digest.total))));
+        if (!due.isEmpty()) {
+            log.info("Sent {} comment digests", due.size());
+        }
+    }
+
+    private static class Digest {
+        private final String username;
+        private final Instant windowEnd;
+        private final List<String> lines = new ArrayList<>();
+        private int total;
+
+        Digest(String username, Instant windowEnd) {
+            this.username = username;
+            this.windowEnd = windowEnd;
+        }
+
+        void add(String line, int maxLines) {
+            total++;
+            if (lines.size() < maxLines) {
+                lines.add(line);
+            }
+        }
+    }
+}
@@ -1,20 +1,35 @@
 package com.example.redditclone.service;
 
+import com.example.redditclone.dto.CommentNode;
 import com.example.redditclone.dto.CommentsDto;
+import com.example.redditclone.dto.CursorPage;
+import com.example.redditclone.dto.KeysetCursor;
+import com.example.redditclone.exceptions.CommentNotFoundException;
 import com.example.redditclone.exceptions.PostNotFoundException;
+import com.example.redditclone.exceptions.SpringRedditException;
+import com.example.redditclone.live.LiveUpdateBroadcaster;
 import com.example.redditclone.model.Comment;
-import com.example.redditclone.model.NotificationEmail;
+import com.example.redditclone.model.CommentSort;
 import com.example.redditclone.model.Post;
 import com.example.redditclone.model.User;
 import com.example.redditclone.repository.CommentRepository;
 import com.example.redditclone.repository.PostRepository;
 import com.example.redditclone.repository.UserRepository;
+import com.example.redditclone.search.SearchDocument;
+import com.example.redditclone.search.SearchService;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -22,49 +37,143 @@ import java.util.stream.Collectors;
 @Slf4j
 public class CommentsService {
 
-    private static final String POST_URL = "";
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 200;
+    public static final int DEFAULT_TREE_DEPTH = 5;
+    public static final int MAX_DEPTH = 32;
+
     private final CommentRepository commentRepository;
     private final UserRepository userRepository;
     private final PostRepository postRepository;
     private final AuthService authService;
     private final PostService postService;
-    private final MailContentBuilder mailContentBuilder;
-    private final MailService mailService;
+    private final CommentNotificationCoalescer commentNotificationCoalescer;
+    private final SubredditCatalog subredditCatalog;
+    private final SearchService searchService;
+    private final LiveUpdateBroadcaster liveUpdateBroadcaster;
 
+    @Transactional
     public void save(CommentsDto commentsDto) {
-        Comment comment = mapCommentDto(commentsDto);
         Post post = postRepository.findById(commentsDto.getPostId())
                 .orElseThrow(() -> new PostNotFoundException(commentsDto.getPostId().toString()));
+        Comment comment = mapCommentDto(commentsDto, post);
+
+        Comment parent = null;
+        if (commentsDto.getParentId() != null) {
+            parent = commentRepository.findById(commentsDto.getParentId())
+                    .orElseThrow(() -> new CommentNotFoundException(commentsDto.getParentId().toString()));
+            if (!parent.getPost().getPostId().equals(post.getPostId())) {
+                throw new SpringRedditException("Parent comment belongs to another post");
+            }
+            if (parent.getDepth() >= MAX_DEPTH) {
+                throw new SpringRedditException("Maximum reply depth reached");
+            }
+        }
+        comment.setParentId(parent == null ? null : parent.getId());
+        comment.setDepth(parent == null ? 0 : parent.getDepth() + 1);
+        comment.setReplyCount(0);
+
+        // the id comes from the pooled sequence on save, so the path still goes out with the insert
+        Comment created = commentRepository.save(comment);
+        created.setPath((parent == null ? "" : parent.getPath()) + pathSegment(created.getId()));
+        if (parent != null) {
+            commentRepository.incrementReplyCount(parent.getId(), 1);
+        }
+        postRepository.incrementCommentCount(post.getPostId(), 1);
 
-        commentRepository.save(comment);
-        
-        String message = mailContentBuilder.build(post.getUser().getUsername() + " posted a comment on your post. " + POST_URL);
-        sendCommentNotification(message, post.getUser());
+        String commenter = created.getUser().getUsername();
+        commentNotificationCoalescer.commentAdded(post.getUser().getEmail(), post.getUser().getUsername(), commenter,
+                post.getPostName());
+        CommentsDto saved = mapToDto(created);
+        Long subredditId = post.getSubreddit().getId();
+        AfterCommit.run(() -> liveUpdateBroadcaster.commentAdded(subredditId, saved));
+        subredditCatalog.findById(subredditId).ifPresent(subreddit ->
+                searchService.indexAfterCommit(new SearchDocument(SearchDocument.COMMENT, created.getId(),
+                        post.getPostId(), post.getPostName(), created.getText(), commenter,
+                        subreddit.name(), created.getCreatedDate())));
     }
 
-    private void sendCommentNotification(String message, User user) {
-        mailService.sendMail(new NotificationEmail(user.getUsername() + " Commented on your post", user.getEmail(), message));
+    static String pathSegment(Long commentId) {
+        return String.format("%012d.", commentId);
     }
 
     public CommentsDto mapToDto(Comment comment){
-        return new CommentsDto(comment.getId(), comment.getPost().getPostId(), comment.getCreatedDate(), comment.getText(), comment.getUser().getUsername());
+        return new CommentsDto(comment.getId(), comment.getPost().getPostId(), comment.getCreatedDate(), comment.getText(), comment.getUser().getUsername(), comment.getParentId());
     }
 
-    public Comment mapCommentDto(CommentsDto commentsDto){
+    public Comment mapCommentDto(CommentsDto commentsDto, Post post){
         User currentUser = authService.getCurrentUser();
-        Post post = postRepository.findById(commentsDto.getPostId())
-                .orElseThrow( () -> new PostNotFoundException(commentsDto.getPostId().toString()));
-        return Comment.builder().post(post).user(currentUser).createdDate(commentsDto.getCreatedDate()).text(commentsDto.getText()).id(commentsDto.getId()).build();
+        return Comment.builder().post(post).user(currentUser).createdDate(Instant.now()).text(commentsDto.getText()).build();
     }
 
-    public List<CommentsDto> getAllCommentsForPost(Long postId) {
-        Post post = postRepository.findById(postId)
-                .orElseThrow( () -> new PostNotFoundException(postId.toString()));
-        return commentRepository.findByPost(post)
-                .stream()
-                .map( (comment) -> mapToDto(comment))
-                .collect(Collectors.toList());
+    /**
+     * Comments are only ever added, and each one bumps the post's comment count, so the count
+     * versions every page of the listing.
+     */
+    @Transactional(readOnly = true)
+    public String getCommentsETag(Long postId) {
+        Integer commentCount = postRepository.findCommentCount(postId)
+                .orElseThrow(() -> new PostNotFoundException(postId.toString()));
+        return "W/\"" + commentCount + "\"";
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPage<CommentsDto> getCommentsForPost(Long postId, CommentSort sort, String cursor, int size) {
+        if (!postRepository.existsById(postId)) {
+            throw new PostNotFoundException(postId.toString());
+        }
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        // one extra row tells whether there is a next page
+        Pageable page = PageRequest.of(0, pageSize + 1);
+        KeysetCursor after = cursor == null ? null : KeysetCursor.decode(cursor);
+        List<CommentsDto> comments;
+        if (sort == CommentSort.OLD) {
+            comments = after == null
+                    ? commentRepository.findOldest(postId, page)
+                    : commentRepository.findOldestAfter(postId, after.createdDate(), after.id(), page);
+        } else {
+            comments = after == null
+                    ? commentRepository.findNewest(postId, page)
+                    : commentRepository.findNewestBefore(postId, after.createdDate(), after.id(), page);
+        }
+
+        String nextCursor = null;
+        if (comments.size() > pageSize) {
+            comments = comments.subList(0, pageSize);
+            CommentsDto last = comments.get(pageSize - 1);
+            nextCursor = new KeysetCursor(last.getCreatedDate(), last.getId()).encode();
+        }
+        return new CursorPage<>(comments, nextCursor);
+    }
+
+    /**
+     * Loads a post's comment tree, or the subtree under parentId, down to the given number of levels
+     * with a single query ordered by the comment paths; subtrees are a prefix range on the path.
+     */
+    @Transactional(readOnly = true)
+    public List<CommentNode> getCommentTree(Long postId, Long parentId, int levels) {
+        int depthLimit = Math.max(1, Math.min(levels, MAX_DEPTH + 1));
+        List<CommentNode> rows;
+        if (parentId == null) {
+            rows = commentRepository.findTree(postId, depthLimit - 1);
+        } else {
+            Comment parent = commentRepository.findById(parentId)
+                    .orElseThrow(() -> new CommentNotFoundException(parentId.toString()));
+            rows = commentRepository.findSubtree(postId, parent.getPath(), parent.getDepth() + depthLimit - 1);
+        }
 
+        List<CommentNode> roots = new ArrayList<>();
+        Map<Long, CommentNode> nodes = new HashMap<>();
+        for (CommentNode node : rows) {
+            nodes.put(node.getId(), node);
+            CommentNode parentNode = node.getParentId() == null ? null : nodes.get(node.getParentId());
+            if (parentNode == null) {
+                roots.add(node);
+            } else {
+                parentNode.getReplies().add(node);
+            }
+        }
+        return roots;
     }
 
     public List<CommentsDto> getAllCommentsForUser(String username) {
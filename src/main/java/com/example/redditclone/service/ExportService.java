@@ -0,0 +1,71 @@
+package com.example.redditclone.service;
+
+import com.example.redditclone.dto.CommentsDto;
+import com.example.redditclone.dto.PostSummary;
+import com.example.redditclone.model.User;
+import com.example.redditclone.repository.CommentRepository;
+import com.example.redditclone.repository.PostRepository;
+import com.example.redditclone.repository.UserRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.AllArgsConstructor;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Writes a user's full history as NDJSON, one object per line. Rows are read from
+ * streaming queries and written as they arrive, so memory stays flat however long
+ * the history is.
+ */
+@Service
+@AllArgsConstructor
+public class ExportService {
+
+    private final UserRepository userRepository;
+    private final PostRepository postRepository;
+    private final CommentRepository commentRepository;
+    private final VoteCountAggregator voteCountAggregator;
+    private final ObjectMapper objectMapper;
+
+    @Transactional(readOnly = true)
+    public User findUser(String username) {
+        return userRepository.findByUsername(username).orElseThrow(() -> new UsernameNotFoundException(username));
+    }
+
+    @Transactional(readOnly = true)
+    public void writePosts(User user, OutputStream out) throws IOException {
+        try (Stream<PostSummary> posts = postRepository.streamByUser(user)) {
+            writeLines(posts.peek(post -> post.setVoteCount(
+                    voteCountAggregator.currentCount(post.getPostId(), post.getVoteCount(), post.getRevision()))), out);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public void writeComments(User user, OutputStream out) throws IOException {
+        try (Stream<CommentsDto> comments = commentRepository.streamByUser(user)) {
+            writeLines(comments, out);
+        }
+    }
+
+    private void writeLines(Stream<?> rows, OutputStream out) throws IOException {
+        // no flush per row: the servlet buffer decides when a chunk goes out
+        ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(out)) {
+            json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            json.setRootValueSeparator(null);
+            Iterator<?> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                writer.writeValue(json, iterator.next());
+                json.writeRaw('\n');
+            }
+        }
+    }
+}
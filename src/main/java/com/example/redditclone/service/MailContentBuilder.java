@@ -1,21 +1,51 @@
 package com.example.redditclone.service;
 
-import lombok.AllArgsConstructor;
-import lombok.Setter;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.context.annotation.Bean;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 import org.thymeleaf.TemplateEngine;
 import org.thymeleaf.context.Context;
 
+import java.util.List;
+
+/**
+ * Renders mail bodies exactly once, when the mail is queued. Parsed templates and the shared fragments stay in
+ * Thymeleaf's template cache, which is filled at startup so the first real mail does not pay for parsing.
+ */
 @Service
-@AllArgsConstructor
 public class MailContentBuilder {
+    private static final String MAIL_TEMPLATE = "mailTemplate";
+    private static final String DIGEST_TEMPLATE = "digestTemplate";
+
     private final TemplateEngine templateEngine;
+    private final Timer mailTimer;
+    private final Timer digestTimer;
+
+    public MailContentBuilder(TemplateEngine templateEngine, MeterRegistry meterRegistry) {
+        this.templateEngine = templateEngine;
+        this.mailTimer = Timer.builder("reddit.mail.render").tag("template", MAIL_TEMPLATE).register(meterRegistry);
+        this.digestTimer = Timer.builder("reddit.mail.render").tag("template", DIGEST_TEMPLATE).register(meterRegistry);
+    }
 
     String build(String message){
         Context context = new Context();
         context.setVariable("message", message);
-        return templateEngine.process("mailTemplate", context);
+        return mailTimer.record(() -> templateEngine.process(MAIL_TEMPLATE, context));
+    }
+
+    String buildDigest(String username, List<String> lines, int total){
+        Context context = new Context();
+        context.setVariable("username", username);
+        context.setVariable("lines", lines);
+        context.setVariable("total", total);
+        return digestTimer.record(() -> templateEngine.process(DIGEST_TEMPLATE, context));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        build("");
+        buildDigest("", List.of(), 0);
     }
 }
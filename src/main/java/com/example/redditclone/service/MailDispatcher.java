@@ -0,0 +1,192 @@
+package com.example.redditclone.service;
+
+import com.example.redditclone.model.OutboxMail;
+import com.example.redditclone.model.OutboxStatus;
+import com.example.redditclone.repository.OutboxMailRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Drains the mail outbox in batches. Each batch goes out over a single SMTP connection; failed messages are
+ * retried with exponential backoff and dead-lettered once they run out of attempts.
+ * A batch is claimed in a short transaction that pushes its next attempt out by the claim timeout, sent with
+ * no transaction or row lock held, and its outcome recorded in a second short transaction.
+ * Sent mails are kept for the retention period and then purged in batches.
+ */
+@Service
+@Slf4j
+public class MailDispatcher {
+
+    private static final String FROM = "springreddit@email.com";
+
+    private final OutboxMailRepository outboxMailRepository;
+    private final JavaMailSender mailSender;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final Duration claimTimeout;
+    private final Duration retention;
+    private final Counter sent;
+    private final Counter failed;
+    private final Counter dead;
+    private final Timer batchTimer;
+
+    public MailDispatcher(OutboxMailRepository outboxMailRepository, JavaMailSender mailSender,
+                          TransactionTemplate transactionTemplate, MeterRegistry meterRegistry,
+                          @Value("${reddit.mail.batch-size}") int batchSize,
+                          @Value("${reddit.mail.max-attempts}") int maxAttempts,
+                          @Value("${reddit.mail.initial-backoff}") Duration initialBackoff,
+                          @Value("${reddit.mail.max-backoff}") Duration maxBackoff,
+                          @Value("${reddit.mail.claim-timeout}") Duration claimTimeout,
+                          @Value("${reddit.mail.retention}") Duration retention) {
+        this.outboxMailRepository = outboxMailRepository;
+        this.mailSender = mailSender;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.claimTimeout = claimTimeout;
+        this.retention = retention;
+        this.sent = Counter.builder("reddit.mail.sent").register(meterRegistry);
+        this.failed = Counter.builder("reddit.mail.failed").register(meterRegistry);
+        this.dead = Counter.builder("reddit.mail.dead").register(meterRegistry);
+        this.batchTimer = Timer.builder("reddit.mail.batch").register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${reddit.mail.dispatch-interval}")
+    public void dispatch() {
+        List<OutboxMail> batch = transactionTemplate.execute(status -> claim());
+        if (batch == null || batch.isEmpty()) {
+            return;
+        }
+        batchTimer.record(() -> send(batch));
+        transactionTemplate.executeWithoutResult(status -> outboxMailRepository.saveAll(batch));
+    }
+
+    // one short transaction per batch, so a large backlog never holds locks on more than a batch of rows
+    @Scheduled(fixedDelayString = "${reddit.mail.purge-interval}")
+    public void purgeSent() {
+        Instant cutoff = Instant.now().minus(retention);
+        int purged = 0;
+        List<Long> ids;
+        do {
+            ids = transactionTemplate.execute(status -> {
+                List<Long> batch = outboxMailRepository.findIdsSentBefore(OutboxStatus.SENT, cutoff,
+                        PageRequest.of(0, batchSize));
+                if (!batch.isEmpty()) {
+                    outboxMailRepository.deleteAllByIdInBatch(batch);
+                }
+                return batch;
+            });
+            purged += ids.size();
+        } while (ids.size() == batchSize);
+        if (purged > 0) {
+            log.info("Purged {} sent mails older than {}", purged, retention);
+        }
+    }
+
+    private List<OutboxMail> claim() {
+        Instant now = Instant.now();
+        List<OutboxMail> batch = outboxMailRepository.findDue(OutboxStatus.PENDING, now, PageRequest.of(0, batchSize));
+        batch.forEach(mail -> mail.setNextAttemptAt(now.plus(claimTimeout)));
+        return batch;
+    }
+
+    private void send(List<OutboxMail> batch) {
+        Map<MimeMessage, OutboxMail> messages = new IdentityHashMap<>();
+        for (OutboxMail mail : batch) {
+            try {
+                messages.put(toMimeMessage(mail), mail);
+            } catch (MessagingException e) {
+                markFailed(mail, e);
+            }
+        }
+
+        Map<Object, Exception> failures = Collections.emptyMap();
+        try {
+            mailSender.send(messages.keySet().toArray(new MimeMessage[0]));
+        } catch (MailSendException e) {
+            failures = e.getFailedMessages();
+            if (failures.isEmpty()) {
+                failures = allFailed(messages, e);
+            }
+        } catch (MailException e) {
+            failures = allFailed(messages, e);
+        }
+
+        Instant now = Instant.now();
+        for (Map.Entry<MimeMessage, OutboxMail> entry : messages.entrySet()) {
+            Exception failure = failures.get(entry.getKey());
+            if (failure == null) {
+                entry.getValue().setStatus(OutboxStatus.SENT);
+                entry.getValue().setSentDate(now);
+                sent.increment();
+            } else {
+                markFailed(entry.getValue(), failure);
+            }
+        }
+        log.info("Dispatched {} mails, {} failed", messages.size() - failures.size(), failures.size());
+    }
+
+    private MimeMessage toMimeMessage(OutboxMail mail) throws MessagingException {
+        MimeMessage mimeMessage = mailSender.createMimeMessage();
+        MimeMessageHelper messageHelper = new MimeMessageHelper(mimeMessage);
+        messageHelper.setFrom(FROM);
+        messageHelper.setTo(mail.getRecipient());
+        messageHelper.setSubject(mail.getSubject());
+        messageHelper.setText(mail.getBody(), true);
+        return mimeMessage;
+    }
+
+    private Map<Object, Exception> allFailed(Map<MimeMessage, OutboxMail> messages, Exception e) {
+        Map<Object, Exception> failures = new IdentityHashMap<>();
+        messages.keySet().forEach(message -> failures.put(message, e));
+        return failures;
+    }
+
+    private void markFailed(OutboxMail mail, Exception e) {
+        int attempts = mail.getAttempts() + 1;
+        mail.setAttempts(attempts);
+        mail.setLastError(abbreviate(e.getMessage()));
+        failed.increment();
+        if (attempts >= maxAttempts) {
+            mail.setStatus(OutboxStatus.DEAD);
+            dead.increment();
+            log.error("Giving up on mail {} to {} after {} attempts", mail.getId(), mail.getRecipient(), attempts, e);
+            return;
+        }
+        Duration backoff = initialBackoff.multipliedBy(1L << Math.min(attempts - 1, 20));
+        mail.setNextAttemptAt(Instant.now().plus(backoff.compareTo(maxBackoff) > 0 ? maxBackoff : backoff));
+        log.warn("Mail {} to {} failed, attempt {} of {}", mail.getId(), mail.getRecipient(), attempts, maxAttempts);
+    }
+
+    private String abbreviate(String message) {
+        if (message == null || message.length() <= 1000) {
+            return message;
+        }
+        return message.substring(0, 1000);
+    }
+}
@@ -1,40 +1,39 @@
 package com.example.redditclone.service;
 
-import com.example.redditclone.exceptions.SpringRedditException;
 import com.example.redditclone.model.NotificationEmail;
-import com.example.redditclone.model.User;
+import com.example.redditclone.model.OutboxMail;
+import com.example.redditclone.model.OutboxStatus;
+import com.example.redditclone.repository.OutboxMailRepository;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.mail.MailException;
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.mail.javamail.MimeMessageHelper;
-import org.springframework.mail.javamail.MimeMessagePreparator;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
 
 @Service
 @AllArgsConstructor
 @Slf4j
 public class MailService {
 
-    private final JavaMailSender mailSender;
-    private final MailContentBuilder mailContentBuilder;
+    private final OutboxMailRepository outboxMailRepository;
 
-    @Async
+    /**
+     * Queues the mail in the outbox as part of the caller's transaction; MailDispatcher delivers it.
+     * The body must already be rendered by MailContentBuilder.
+     */
+    @Transactional
     public void sendMail(NotificationEmail notificationEmail){
-        MimeMessagePreparator messagePreparator = mimeMessage -> {
-            MimeMessageHelper messageHelper = new MimeMessageHelper(mimeMessage);
-            messageHelper.setFrom("springreddit@email.com");
-            messageHelper.setTo(notificationEmail.getRecipient());
-            messageHelper.setSubject(notificationEmail.getSubject());
-            messageHelper.setText(mailContentBuilder.build(notificationEmail.getBody()));
-        };
-        try{
-            mailSender.send(messagePreparator);
-            log.info("Activation email sent!!");
-        } catch (MailException e){
-            throw new SpringRedditException("Exception occured when sending mail to ");
-        }
+        Instant now = Instant.now();
+        outboxMailRepository.save(OutboxMail.builder()
+                .recipient(notificationEmail.getRecipient())
+                .subject(notificationEmail.getSubject())
+                .body(notificationEmail.getBody())
+                .status(OutboxStatus.PENDING)
+                .attempts(0)
+                .nextAttemptAt(now)
+                .createdDate(now)
+                .build());
     }
 
 }
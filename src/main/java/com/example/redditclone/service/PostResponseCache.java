@@ -0,0 +1,88 @@
+package com.example.redditclone.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Serialized {@code GET /api/posts/{id}} bodies, bounded by total bytes. Each body is stored with the
+ * ETag it was rendered for and is served only for that tag; a request carrying a newer tag renders
+ * and replaces it, while a render for an older tag never displaces a newer body. Writes never evict,
+ * so a post under a stream of votes is rendered once per tag change rather than once per vote.
+ * Entries nobody asks for expire after the TTL.
+ */
+@Service
+public class PostResponseCache {
+
+    public record Body(String eTag, byte[] json, byte[] gzip) {
+    }
+
+    private final PostService postService;
+    private final ObjectMapper objectMapper;
+    private final boolean gzip;
+    private final int gzipMinBytes;
+    private final Cache<Long, Body> bodies;
+
+    public PostResponseCache(PostService postService, ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                             @Value("${reddit.post-cache.max-bytes}") long maxBytes,
+                             @Value("${reddit.post-cache.ttl}") Duration ttl,
+                             @Value("${reddit.post-cache.gzip}") boolean gzip,
+                             @Value("${reddit.post-cache.gzip-min-bytes}") int gzipMinBytes) {
+        this.postService = postService;
+        this.objectMapper = objectMapper;
+        this.gzip = gzip;
+        this.gzipMinBytes = gzipMinBytes;
+        this.bodies = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((Long id, Body body) -> body.json().length + (body.gzip() == null ? 0 : body.gzip().length))
+                .expireAfterAccess(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, bodies, "post-responses");
+    }
+
+    /**
+     * Returns the body rendered for the given tag, rendering it if the cached one is missing or older.
+     * If a newer body got cached meanwhile, that one is returned with its own tag.
+     */
+    public Body get(Long postId, String eTag) {
+        Body body = bodies.getIfPresent(postId);
+        if (body != null && body.eTag().equals(eTag)) {
+            return body;
+        }
+        // rendered outside the map, so the database read doesn't hold the lock other posts hash to
+        Body rendered = render(postId, eTag);
+        return bodies.asMap().merge(postId, rendered, (cached, fresh) ->
+                PostService.compareETags(fresh.eTag(), cached.eTag()) > 0 ? fresh : cached);
+    }
+
+    private Body render(Long postId, String eTag) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(postService.getPost(postId));
+            return new Body(eTag, json, gzip && json.length >= gzipMinBytes ? gzip(json) : null);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private byte[] gzip(byte[] json) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 2);
+        try (GZIPOutputStream zip = new GZIPOutputStream(out)) {
+            zip.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+}
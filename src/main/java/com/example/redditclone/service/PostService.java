@@ -1,26 +1,38 @@
 package com.example.redditclone.service;
 
+import com.example.redditclone.dto.CursorPage;
+import com.example.redditclone.dto.KeysetCursor;
 import com.example.redditclone.dto.PostRequest;
 import com.example.redditclone.dto.PostResponse;
+import com.example.redditclone.dto.PostSummary;
 import com.example.redditclone.exceptions.PostNotFoundException;
 import com.example.redditclone.exceptions.SubredditNotFoundException;
 import com.example.redditclone.model.Post;
 import com.example.redditclone.model.Subreddit;
 import com.example.redditclone.model.User;
-import com.example.redditclone.repository.CommentRepository;
+import com.example.redditclone.ranking.FeedSort;
+import com.example.redditclone.ranking.PostRankingService;
+import com.example.redditclone.ranking.RankKey;
+import com.example.redditclone.ranking.TopWindow;
 import com.example.redditclone.repository.PostRepository;
+import com.example.redditclone.search.SearchDocument;
+import com.example.redditclone.search.SearchService;
 import com.example.redditclone.repository.SubredditRepository;
 import com.example.redditclone.repository.UserRepository;
 import com.github.marlonlom.utilities.timeago.TimeAgo;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.security.core.parameters.P;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -28,67 +40,162 @@ import java.util.stream.Collectors;
 @Slf4j
 public class PostService {
 
+    public static final int DEFAULT_PAGE_SIZE = 25;
+    public static final int MAX_PAGE_SIZE = 100;
+
     private final PostRepository postRepository;
     private final SubredditRepository subredditRepository;
     private final UserRepository userRepository;
-    private final CommentRepository commentRepository;
     private final AuthService authService;
+    private final VoteCountAggregator voteCountAggregator;
+    private final PostRankingService postRankingService;
+    private final SubredditCatalog subredditCatalog;
+    private final SearchService searchService;
 
     @Transactional
     public Post save(PostRequest postRequest) {
-        Post post = mapPostDto(postRequest);
-        User currentUser = authService.getCurrentUser();
-        post.setUser(currentUser);
-        return postRepository.save(post);
+        Post post = postRepository.save(mapPostDto(postRequest));
+        AfterCommit.run(() -> postRankingService.onPostCreated(post));
+        searchService.indexAfterCommit(new SearchDocument(SearchDocument.POST, post.getPostId(), post.getPostId(),
+                post.getPostName(), post.getDescription(), post.getUser().getUsername(),
+                postRequest.getSubredditName(), post.getCreatedDate()));
+        return post;
+    }
+
+    /**
+     * Version of {@link #getPost} without loading or mapping the post. The revision moves with every
+     * vote flush and comment, so votes still waiting in the aggregator show up within one flush interval;
+     * the minute is part of the tag because the relative duration text changes with the clock.
+     */
+    @Transactional(readOnly = true)
+    public String getPostETag(Long id){
+        Long revision = postRepository.findRevision(id)
+                .orElseThrow( () -> new PostNotFoundException(id.toString()));
+        long minute = System.currentTimeMillis() / 60_000;
+        return "W/\"" + revision + "." + minute + "\"";
+    }
+
+    /**
+     * Orders tags from {@link #getPostETag}: a later revision is newer, and within a revision a later minute.
+     */
+    public static int compareETags(String first, String second) {
+        long[] a = parseETag(first);
+        long[] b = parseETag(second);
+        return a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]);
+    }
+
+    private static long[] parseETag(String eTag) {
+        String value = eTag.substring(eTag.indexOf('"') + 1, eTag.lastIndexOf('"'));
+        int dot = value.indexOf('.');
+        return new long[]{Long.parseLong(value.substring(0, dot)), Long.parseLong(value.substring(dot + 1))};
     }
 
     @Transactional(readOnly = true)
     public PostResponse getPost(Long id){
-        Post post = postRepository.findById(id)
+        PostSummary post = postRepository.findSummaryById(id)
                 .orElseThrow( () -> new PostNotFoundException(id.toString()));
         return mapToDto(post);
     }
 
     @Transactional(readOnly = true)
-    public List<PostResponse> getAllPosts(){
-        return postRepository.findAll()
-                .stream()
-                .map((post) -> mapToDto(post))
-                .collect(Collectors.toList());
+    public CursorPage<PostResponse> getAllPosts(FeedSort sort, TopWindow window, String cursor, int size){
+        if (sort != FeedSort.NEW) {
+            return rankedPage(null, sort, window, cursor, size);
+        }
+        Pageable page = pageOf(size);
+        List<PostSummary> posts;
+        if (cursor == null) {
+            posts = postRepository.findLatest(page);
+        } else {
+            KeysetCursor after = KeysetCursor.decode(cursor);
+            posts = postRepository.findLatestBefore(after.createdDate(), after.id(), page);
+        }
+        return toPage(posts, page);
     }
 
     @Transactional(readOnly = true)
-    public List<PostResponse> getPostsBySubreddit(Long subredditId) {
-        Subreddit subreddit = subredditRepository.findById(subredditId)
+    public CursorPage<PostResponse> getPostsBySubreddit(Long subredditId, FeedSort sort, TopWindow window, String cursor, int size) {
+        SubredditCatalog.Entry entry = subredditCatalog.findById(subredditId)
                 .orElseThrow( () -> new SubredditNotFoundException(subredditId.toString()));
-        List<Post> posts = postRepository.findAllBySubreddit(subreddit).orElseThrow( () -> new PostNotFoundException("No posts found"));
-        return posts.stream().map( (post) -> mapToDto(post)).collect(Collectors.toList());
+        Subreddit subreddit = subredditRepository.getReferenceById(entry.id());
+        if (sort != FeedSort.NEW) {
+            return rankedPage(subredditId, sort, window, cursor, size);
+        }
+        Pageable page = pageOf(size);
+        List<PostSummary> posts;
+        if (cursor == null) {
+            posts = postRepository.findLatestBySubreddit(subreddit, page);
+        } else {
+            KeysetCursor after = KeysetCursor.decode(cursor);
+            posts = postRepository.findLatestBySubredditBefore(subreddit, after.createdDate(), after.id(), page);
+        }
+        return toPage(posts, page);
     }
 
     @Transactional(readOnly = true)
-    public List<PostResponse> getPostsByUsername(String username){
+    public CursorPage<PostResponse> getPostsByUsername(String username, String cursor, int size){
         User user = userRepository.findByUsername(username).orElseThrow( () -> new UsernameNotFoundException(username));
-        List<Post> posts = postRepository.findByUser(user)
-                .orElseThrow( () -> new PostNotFoundException("No posts found"));
-        return posts.stream()
-                .map( (post) -> mapToDto(post))
-                        .collect(Collectors.toList());
+        Pageable page = pageOf(size);
+        List<PostSummary> posts;
+        if (cursor == null) {
+            posts = postRepository.findLatestByUser(user, page);
+        } else {
+            KeysetCursor after = KeysetCursor.decode(cursor);
+            posts = postRepository.findLatestByUserBefore(user, after.createdDate(), after.id(), page);
+        }
+        return toPage(posts, page);
+    }
+
+    private CursorPage<PostResponse> rankedPage(Long subredditId, FeedSort sort, TopWindow window, String cursor, int size) {
+        int pageSize = pageOf(size).getPageSize() - 1;
+        List<RankKey> keys = postRankingService.page(subredditId, sort, window,
+                cursor == null ? null : RankKey.decode(cursor), pageSize + 1);
+        String nextCursor = null;
+        if (keys.size() > pageSize) {
+            keys = keys.subList(0, pageSize);
+            nextCursor = keys.get(pageSize - 1).encode();
+        }
+
+        List<Long> postIds = keys.stream().map(RankKey::postId).collect(Collectors.toList());
+        Map<Long, PostSummary> summaries = postRepository.findSummariesByIdIn(postIds)
+                .stream()
+                .collect(Collectors.toMap(PostSummary::getPostId, Function.identity()));
+        List<PostResponse> items = postIds.stream()
+                .map(summaries::get)
+                .filter(Objects::nonNull)
+                .map(this::mapToDto)
+                .collect(Collectors.toList());
+        return new CursorPage<>(items, nextCursor);
     }
 
-    public PostResponse mapToDto(Post post){
-        User user = authService.getCurrentUser();
+    // one extra row is fetched to find out whether another page exists
+    private Pageable pageOf(int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        return PageRequest.of(0, pageSize + 1);
+    }
 
+    private CursorPage<PostResponse> toPage(List<PostSummary> posts, Pageable page) {
+        int pageSize = page.getPageSize() - 1;
+        String nextCursor = null;
+        if (posts.size() > pageSize) {
+            posts = posts.subList(0, pageSize);
+            PostSummary last = posts.get(pageSize - 1);
+            nextCursor = new KeysetCursor(last.getCreatedDate(), last.getPostId()).encode();
+        }
+        return new CursorPage<>(posts.stream().map(this::mapToDto).collect(Collectors.toList()), nextCursor);
+    }
+
+    public PostResponse mapToDto(PostSummary post){
         PostResponse.PostResponseBuilder postResponse = PostResponse.builder();
 
         postResponse.id(post.getPostId());
         postResponse.postName(post.getPostName());
         postResponse.url(post.getUrl());
         postResponse.description(post.getDescription());
-        postResponse.userName(user.getUsername());
-        postResponse.subredditName(post.getSubreddit().getName());
-        postResponse.voteCount(post.getVoteCount());
-
-        postResponse.commentCount(commentRepository.findByPost(post).size());
+        postResponse.userName(post.getUserName());
+        postResponse.subredditName(post.getSubredditName());
+        postResponse.voteCount(voteCountAggregator.currentCount(post.getPostId(), post.getVoteCount(), post.getRevision()));
+        postResponse.commentCount(post.getCommentCount());
         postResponse.duration(TimeAgo.using(post.getCreatedDate().toEpochMilli()));
 
         return postResponse.build();
@@ -96,14 +203,16 @@ public class PostService {
 
     public Post mapPostDto(PostRequest postRequest){
         return new Post().builder()
-                .postId(postRequest.getPostId())
                 .user(authService.getCurrentUser())
-                .subreddit(subredditRepository.findByName(postRequest.getSubredditName())
+                .subreddit(subredditCatalog.findByName(postRequest.getSubredditName())
+                        .map(entry -> subredditRepository.getReferenceById(entry.id()))
                         .orElseThrow( () -> new SubredditNotFoundException(postRequest.getSubredditName())))
                 .postName(postRequest.getPostName())
                 .url(postRequest.getUrl())
                 .description(postRequest.getDescription())
                 .voteCount(0)
+                .commentCount(0)
+                .revision(0L)
                 .createdDate(java.time.Instant.now())
                 .build();
     }
@@ -0,0 +1,116 @@
+package com.example.redditclone.service;
+
+import com.example.redditclone.dto.SubredditPostCount;
+import com.example.redditclone.model.Subreddit;
+import com.example.redditclone.repository.PostRepository;
+import com.example.redditclone.repository.SubredditRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Immutable in-memory view of all subreddits and their post counts. Readers never lock; writers build a
+ * new snapshot and swap it in. Writers are serialized, and a refresh holds the lock across its database
+ * read too, so a snapshot read before a concurrent add() can never replace the one that add() produced.
+ * Post counts come from the grouped count query, which also covers posts written by other nodes.
+ */
+@Service
+@RequiredArgsConstructor
+public class SubredditCatalog {
+
+    public record Entry(Long id, String name, String description) {
+    }
+
+    private record Snapshot(List<Entry> entries, Map<Long, Entry> byId, Map<String, Entry> byName,
+                            Map<Long, Long> postCounts) {
+
+        static Snapshot of(Collection<Entry> entries, Map<Long, Long> postCounts) {
+            List<Entry> sorted = entries.stream()
+                    .sorted(Comparator.comparing(Entry::id))
+                    .toList();
+            return new Snapshot(sorted,
+                    sorted.stream().collect(Collectors.toUnmodifiableMap(Entry::id, Function.identity())),
+                    sorted.stream().collect(Collectors.toUnmodifiableMap(Entry::name, Function.identity(), (first, second) -> first)),
+                    Map.copyOf(postCounts));
+        }
+
+        Snapshot withPostCounts(Map<Long, Long> counts) {
+            return of(entries, counts);
+        }
+    }
+
+    private final SubredditRepository subredditRepository;
+    private final PostRepository postRepository;
+    private volatile Snapshot snapshot = Snapshot.of(List.of(), Map.of());
+    // bumped whenever a swap actually changes the entries
+    private volatile long generation;
+
+    @PostConstruct
+    @Scheduled(fixedDelayString = "${reddit.subreddits.catalog-refresh-interval}")
+    public synchronized void refresh() {
+        List<Entry> entries = subredditRepository.findAll()
+                .stream()
+                .map(this::toEntry)
+                .collect(Collectors.toList());
+        swap(Snapshot.of(entries, loadPostCounts()));
+    }
+
+    @Scheduled(fixedDelayString = "${reddit.subreddits.post-count-refresh-interval}")
+    public synchronized void refreshPostCounts() {
+        swap(snapshot.withPostCounts(loadPostCounts()));
+    }
+
+    public synchronized void add(Subreddit subreddit) {
+        List<Entry> entries = new ArrayList<>(snapshot.entries());
+        entries.removeIf(entry -> entry.id().equals(subreddit.getId()));
+        entries.add(toEntry(subreddit));
+        swap(Snapshot.of(entries, snapshot.postCounts()));
+    }
+
+    public long postCount(Long id) {
+        return snapshot.postCounts().getOrDefault(id, 0L);
+    }
+
+    public long generation() {
+        return generation;
+    }
+
+    public List<Entry> all() {
+        return snapshot.entries();
+    }
+
+    public Optional<Entry> findById(Long id) {
+        return Optional.ofNullable(snapshot.byId().get(id));
+    }
+
+    public Optional<Entry> findByName(String name) {
+        return Optional.ofNullable(snapshot.byName().get(name));
+    }
+
+    private synchronized void swap(Snapshot next) {
+        if (!next.entries().equals(snapshot.entries()) || !next.postCounts().equals(snapshot.postCounts())) {
+            snapshot = next;
+            generation++;
+        }
+    }
+
+    private Map<Long, Long> loadPostCounts() {
+        return postRepository.countPostsBySubreddit()
+                .stream()
+                .collect(Collectors.toMap(SubredditPostCount::getSubredditId, SubredditPostCount::getPostCount));
+    }
+
+    private Entry toEntry(Subreddit subreddit) {
+        return new Entry(subreddit.getId(), subreddit.getName(), subreddit.getDescription());
+    }
+}
@@ -16,27 +16,39 @@ import java.util.stream.Collectors;
 @AllArgsConstructor
 @Slf4j
 public class SubredditService {
+    // the version counters start over on restart, so the tag has to tell boots apart
+    private static final String INSTANCE = Long.toString(System.currentTimeMillis(), 36);
+
     private final SubredditRepository subredditRepository;
-    
+    private final SubredditCatalog subredditCatalog;
+
     @Transactional
     public SubredditDto save(SubredditDto subredditDto){
         Subreddit save = subredditRepository.save(mapSubredditDto(subredditDto));
         subredditDto.setId(save.getId());
+        AfterCommit.run(() -> subredditCatalog.add(save));
         return subredditDto;
     }
 
-    @Transactional(readOnly = true)
+    /**
+     * Subreddit responses only change with the catalog entries or its cached post counts, and both bump its generation.
+     */
+    public String getCatalogETag() {
+        return "W/\"" + INSTANCE + "." + subredditCatalog.generation() + "\"";
+    }
+
     public List<SubredditDto> getAll() {
-        return subredditRepository.findAll()
+        return subredditCatalog.all()
                 .stream()
                 .map(this::mapToDto)
                 .collect(Collectors.toList());
     }
 
-    private SubredditDto mapToDto(Subreddit subreddit) {
-        return SubredditDto.builder().name(subreddit.getName())
-                .id(subreddit.getId())
-                .numberOfPosts(subreddit.getPosts().size())
+    private SubredditDto mapToDto(SubredditCatalog.Entry subreddit) {
+        return SubredditDto.builder().name(subreddit.name())
+                .id(subreddit.id())
+                .description(subreddit.description())
+                .numberOfPosts(Math.toIntExact(subredditCatalog.postCount(subreddit.id())))
                 .build();
     }
 
@@ -45,7 +57,7 @@ public class SubredditService {
     }
 
     public SubredditDto getSubreddit(Long id) {
-        Subreddit subreddit = subredditRepository.findById(id)
+        SubredditCatalog.Entry subreddit = subredditCatalog.findById(id)
                 .orElseThrow( () -> new SpringRedditException("No subreddit found with "));
         return mapToDto(subreddit);
     }
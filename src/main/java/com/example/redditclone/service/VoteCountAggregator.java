@@ -0,0 +1,200 @@
+package com.example.redditclone.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Collects vote deltas per post in memory and writes them to post.vote_count in periodic batches,
+ * so concurrent votes on the same post never contend on the row.
+ * <p>
+ * Every flushed delta is stamped with the post revision its update produces. A reader passes the
+ * revision of the row it loaded, and a flushed delta counts only while that revision is older than
+ * the stamp, so it is counted exactly once whether the row was read before or after the flush committed.
+ */
+@Service
+@Slf4j
+public class VoteCountAggregator {
+
+    private static final String FLUSH_SQL =
+            "update post set vote_count = coalesce(vote_count, 0) + ?, revision = coalesce(revision, 0) + 1 " +
+            "where post_id = ?";
+    private static final int LOCK_CHUNK = 1000;
+    // how long a written delta is remembered for readers still holding a row from before its flush
+    private static final Duration WRITTEN_RETENTION = Duration.ofMinutes(1);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    // writers share the read lock; only the swap of the pending map takes the write lock
+    private final ReadWriteLock swapLock = new ReentrantReadWriteLock();
+    private volatile Map<Long, LongAdder> pending = new ConcurrentHashMap<>();
+    private volatile Map<Long, LongAdder> flushing = Collections.emptyMap();
+    // revision each flushing delta is written at; a delta without a stamp is not written yet
+    private volatile Map<Long, Long> flushingStamps = Collections.emptyMap();
+    // only replaced under the write lock; the lists are never modified
+    private volatile Map<Long, List<Written>> written = Collections.emptyMap();
+
+    public VoteCountAggregator(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    /**
+     * Inside a transaction the delta only becomes visible once that transaction commits.
+     */
+    public void add(Long postId, long delta) {
+        AfterCommit.run(() -> addPending(postId, delta));
+    }
+
+    private void addPending(Long postId, long delta) {
+        swapLock.readLock().lock();
+        try {
+            pending.computeIfAbsent(postId, id -> new LongAdder()).add(delta);
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Deltas not yet part of a row read at the given revision. Under the read lock a swap can't happen
+     * halfway through, so a delta is seen in exactly one of the maps.
+     */
+    public long pendingDelta(Long postId, long revision) {
+        swapLock.readLock().lock();
+        try {
+            long delta = sum(pending.get(postId));
+            LongAdder inFlight = flushing.get(postId);
+            if (inFlight != null && revision < flushingStamps.getOrDefault(postId, Long.MAX_VALUE)) {
+                delta += inFlight.sum();
+            }
+            for (Written entry : written.getOrDefault(postId, List.of())) {
+                if (revision < entry.revision()) {
+                    delta += entry.delta();
+                }
+            }
+            return delta;
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    public int currentCount(Long postId, Integer persistedCount, Long revision) {
+        return (int) ((persistedCount == null ? 0 : persistedCount)
+                + pendingDelta(postId, revision == null ? 0 : revision));
+    }
+
+    @Scheduled(fixedDelayString = "${reddit.votes.flush-interval}")
+    @PreDestroy
+    public synchronized void flush() {
+        Map<Long, LongAdder> batch;
+        swapLock.writeLock().lock();
+        try {
+            batch = pending;
+            flushing = batch;
+            pending = new ConcurrentHashMap<>();
+        } finally {
+            swapLock.writeLock().unlock();
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        List<Object[]> updates = new ArrayList<>(batch.size());
+        batch.forEach((postId, delta) -> {
+            long sum = delta.sum();
+            if (sum != 0) {
+                updates.add(new Object[]{sum, postId});
+            }
+        });
+        boolean succeeded = false;
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                Map<Long, Long> stamps = lockRevisions(updates);
+                jdbcTemplate.batchUpdate(FLUSH_SQL, updates);
+                // the rows stay locked until commit, so these are exactly the revisions the update commits
+                swapLock.writeLock().lock();
+                try {
+                    flushingStamps = stamps;
+                } finally {
+                    swapLock.writeLock().unlock();
+                }
+            });
+            succeeded = true;
+        } catch (RuntimeException e) {
+            log.error("Could not flush vote counts for {} posts, retrying on next flush", updates.size(), e);
+        } finally {
+            finishFlush(batch, succeeded);
+        }
+    }
+
+    // reads and locks the current revision of each post; the update moves each one up by one
+    private Map<Long, Long> lockRevisions(List<Object[]> updates) {
+        Map<Long, Long> stamps = new HashMap<>();
+        for (int from = 0; from < updates.size(); from += LOCK_CHUNK) {
+            List<Object[]> chunk = updates.subList(from, Math.min(from + LOCK_CHUNK, updates.size()));
+            Object[] ids = chunk.stream().map(row -> row[1]).toArray();
+            jdbcTemplate.query("select post_id, coalesce(revision, 0) from post where post_id in ("
+                            + String.join(", ", Collections.nCopies(ids.length, "?")) + ") for update",
+                    (RowCallbackHandler) rs -> stamps.put(rs.getLong(1), rs.getLong(2) + 1), ids);
+        }
+        return stamps;
+    }
+
+    // retires the flushing map in one step: written deltas are kept under their stamps, failed ones go back to pending
+    private void finishFlush(Map<Long, LongAdder> batch, boolean writeSucceeded) {
+        long now = System.nanoTime();
+        swapLock.writeLock().lock();
+        try {
+            Map<Long, List<Written>> retained = new HashMap<>();
+            written.forEach((postId, entries) -> {
+                List<Written> recent = entries.stream()
+                        .filter(entry -> now - entry.writtenAt() < WRITTEN_RETENTION.toNanos())
+                        .toList();
+                if (!recent.isEmpty()) {
+                    retained.put(postId, recent);
+                }
+            });
+            if (writeSucceeded) {
+                Map<Long, Long> stamps = flushingStamps;
+                batch.forEach((postId, delta) -> {
+                    Long stamp = stamps.get(postId);
+                    long sum = delta.sum();
+                    if (stamp != null && sum != 0) {
+                        List<Written> entries = new ArrayList<>(retained.getOrDefault(postId, List.of()));
+                        entries.add(new Written(stamp, sum, now));
+                        retained.put(postId, List.copyOf(entries));
+                    }
+                });
+            } else {
+                batch.forEach((postId, delta) -> pending.computeIfAbsent(postId, id -> new LongAdder()).add(delta.sum()));
+            }
+            written = retained;
+            flushing = Collections.emptyMap();
+            flushingStamps = Collections.emptyMap();
+        } finally {
+            swapLock.writeLock().unlock();
+        }
+    }
+
+    private long sum(LongAdder adder) {
+        return adder == null ? 0 : adder.sum();
+    }
+
+    private record Written(long revision, long delta, long writtenAt) {
+    }
+}
@@ -3,52 +3,76 @@ package com.example.redditclone.service;
 import com.example.redditclone.dto.VoteDto;
 import com.example.redditclone.exceptions.PostNotFoundException;
 import com.example.redditclone.exceptions.SpringRedditException;
+import com.example.redditclone.live.LiveUpdateBroadcaster;
 import com.example.redditclone.model.Post;
-import com.example.redditclone.model.Vote;
+import com.example.redditclone.model.VoteType;
+import com.example.redditclone.ranking.PostRankingService;
 import com.example.redditclone.repository.PostRepository;
+import com.example.redditclone.repository.UserRepository;
 import com.example.redditclone.repository.VoteRepository;
 import lombok.AllArgsConstructor;
-import lombok.NoArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.Optional;
-
-import static com.example.redditclone.model.VoteType.UPVOTE;
-
 @Service
 @AllArgsConstructor
 public class VoteService {
 
     private final VoteRepository voteRepository;
     private final PostRepository postRepository;
+    private final UserRepository userRepository;
     private final AuthService authService;
+    private final VoteCountAggregator voteCountAggregator;
+    private final PostRankingService postRankingService;
+    private final LiveUpdateBroadcaster liveUpdateBroadcaster;
 
     @Transactional
     public void vote(VoteDto voteDto) {
-        Post post = postRepository.findById(voteDto.getPostId())
-                .orElseThrow( () -> new PostNotFoundException("Post not found with ID" + voteDto.getPostId()));
-        Optional<Vote> voteByPostAndUser = voteRepository.findTopByPostAndUserOrderByVoteIdDesc(post, authService.getCurrentUser());
-        if (voteByPostAndUser.isPresent() &&
-                voteByPostAndUser.get().getVoteType()
-                        .equals(voteDto.getVoteType())){
+        Post post = findPost(voteDto.getPostId());
+        Long userId = authService.getCurrentUser().getUserId();
+        VoteType voteType = voteDto.getVoteType();
+
+        int delta;
+        if (voteRepository.flipVote(post.getPostId(), userId, voteType) == 1) {
+            delta = 2 * voteType.getDirection();
+        } else if (voteRepository.insertVote(post.getPostId(), userId, voteType.ordinal()) == 1) {
+            delta = voteType.getDirection();
+        } else if (!postRepository.existsById(post.getPostId())) {
+            throw new PostNotFoundException("Post not found with ID" + post.getPostId());
+        } else if (!userRepository.existsById(userId)) {
+            throw new SpringRedditException("User not found with ID " + userId);
+        } else {
             throw new SpringRedditException("You have already "
-            + voteDto.getVoteType() + "'d for this post");
+            + voteType + "'d for this post");
         }
-        if (UPVOTE.equals(voteDto.getVoteType())){
-            post.setVoteCount(post.getVoteCount() + 1);
-        } else{
-            post.setVoteCount(post.getVoteCount() - 1);
+        applyDelta(post, delta);
+    }
+
+    @Transactional
+    public void clearVote(VoteDto voteDto) {
+        Post post = findPost(voteDto.getPostId());
+        Long userId = authService.getCurrentUser().getUserId();
+        VoteType voteType = voteDto.getVoteType();
+
+        if (voteRepository.clearVote(post.getPostId(), userId, voteType) == 0) {
+            throw new SpringRedditException("You have not "
+            + voteType + "'d this post");
         }
-        voteRepository.save(mapToVote(voteDto, post));
-        postRepository.save(post);
+        applyDelta(post, -voteType.getDirection());
+    }
+
+    private void applyDelta(Post post, int delta) {
+        Long postId = post.getPostId();
+        Long subredditId = post.getSubreddit().getId();
+        voteCountAggregator.add(postId, delta);
+        AfterCommit.run(() -> {
+            postRankingService.onVote(postId, delta);
+            liveUpdateBroadcaster.voteChanged(postId, subredditId, delta);
+        });
     }
 
-    private Vote mapToVote(VoteDto voteDto, Post post) {
-        return Vote.builder()
-                .voteType(voteDto.getVoteType())
-                .post(post)
-                .user(authService.getCurrentUser())
-                .build();
+    private Post findPost(Long postId) {
+        return postRepository.findById(postId)
+                .orElseThrow( () -> new PostNotFoundException("Post not found with ID" + postId));
     }
 }
@@ -0,0 +1,117 @@
+package com.example.redditclone;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Load comparison of platform and virtual request threads. Start the application once as is and once
+ * with the virtual-threads profile, and run this against each:
+ * mvn test -Dtest=ThreadModelLoadComparison -Dbenchmark=true -Dload.token=... -Dload.post-id=1 -Dload.label=virtual
+ * Optional: -Dload.base-url (default http://localhost:8081), -Dload.clients (200), -Dload.seconds (30).
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class ThreadModelLoadComparison {
+
+    private final String baseUrl = System.getProperty("load.base-url", "http://localhost:8081");
+    private final String token = System.getProperty("load.token");
+    private final long postId = Long.getLong("load.post-id", 1L);
+    private final int clients = Integer.getInteger("load.clients", 200);
+    private final int seconds = Integer.getInteger("load.seconds", 30);
+    private final String label = System.getProperty("load.label", "unlabelled");
+
+    private final HttpClient http = HttpClient.newBuilder()
+            .executor(Executors.newFixedThreadPool(32))
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    @Test
+    void compareThreadModels() throws Exception {
+        Map<String, Endpoint> endpoints = new LinkedHashMap<>();
+        endpoints.put("feed", n -> get("/api/posts/?size=25"));
+        endpoints.put("vote", n -> post("/api/votes/",
+                "{\"voteType\":\"" + (n % 2 == 0 ? "UPVOTE" : "DOWNVOTE") + "\",\"postId\":" + postId + "}"));
+        endpoints.put("comments", n -> get("/api/comments/by-post/" + postId + "?size=50"));
+
+        System.out.printf("mode=%s clients=%d seconds=%d%n", label, clients, seconds);
+        System.out.printf("%-10s %12s %10s %10s %8s%n", "endpoint", "req/s", "p50 ms", "p99 ms", "errors");
+        for (Map.Entry<String, Endpoint> endpoint : endpoints.entrySet()) {
+            run(endpoint.getKey(), endpoint.getValue(), Duration.ofSeconds(5), false);
+            run(endpoint.getKey(), endpoint.getValue(), Duration.ofSeconds(seconds), true);
+        }
+    }
+
+    private void run(String name, Endpoint endpoint, Duration duration, boolean report) throws Exception {
+        List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+        AtomicLong errors = new AtomicLong();
+        long deadline = System.nanoTime() + duration.toNanos();
+        ExecutorService pool = Executors.newFixedThreadPool(clients);
+        for (int c = 0; c < clients; c++) {
+            pool.execute(() -> {
+                long n = 0;
+                while (System.nanoTime() < deadline) {
+                    long start = System.nanoTime();
+                    try {
+                        int status = http.send(endpoint.request(n++), HttpResponse.BodyHandlers.discarding()).statusCode();
+                        if (status >= 400) {
+                            errors.incrementAndGet();
+                        }
+                    } catch (Exception e) {
+                        errors.incrementAndGet();
+                    }
+                    latencies.add(System.nanoTime() - start);
+                }
+            });
+        }
+        pool.shutdown();
+        pool.awaitTermination(duration.toSeconds() + 60, TimeUnit.SECONDS);
+        if (!report) {
+            return;
+        }
+        List<Long> sorted = new ArrayList<>(latencies);
+        Collections.sort(sorted);
+        System.out.printf("%-10s %12.0f %10.1f %10.1f %8d%n", name,
+                sorted.size() / (double) duration.toSeconds(),
+                percentile(sorted, 0.50), percentile(sorted, 0.99), errors.get());
+    }
+
+    private double percentile(List<Long> sorted, double p) {
+        if (sorted.isEmpty()) {
+            return 0;
+        }
+        return sorted.get((int) Math.min(sorted.size() - 1, Math.ceil(p * sorted.size()) - 1)) / 1e6;
+    }
+
+    private HttpRequest get(String path) {
+        return authorized(path).GET().build();
+    }
+
+    private HttpRequest post(String path, String json) {
+        return authorized(path).header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json)).build();
+    }
+
+    private HttpRequest.Builder authorized(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(30))
+                .header("Authorization", "Bearer " + token);
+    }
+
+    private interface Endpoint {
+        HttpRequest request(long n);
+    }
+}
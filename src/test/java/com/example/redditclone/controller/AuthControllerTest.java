@@ -0,0 +1,89 @@
+package com.example.redditclone.controller;
+
+import com.example.redditclone.dto.LoginRequest;
+import com.example.redditclone.exceptions.PasswordHashingRejectedException;
+import com.example.redditclone.service.AuthService;
+import com.example.redditclone.service.RefreshTokenService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.InternalAuthenticationServiceException;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class AuthControllerTest {
+
+    private AuthService authService;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        authService = mock(AuthService.class);
+        mockMvc = MockMvcBuilders.standaloneSetup(new AuthController(authService, mock(RefreshTokenService.class)))
+                .build();
+    }
+
+    @Test
+    void overloadOnAnUnknownUserIsServiceUnavailable() throws Exception {
+        UserDetailsService users = username -> {
+            throw new UsernameNotFoundException(username);
+        };
+        PasswordEncoder encoder = mock(PasswordEncoder.class);
+        when(encoder.encode(anyString())).thenReturn("hash");
+        when(encoder.matches(any(), any())).thenThrow(new PasswordHashingRejectedException("busy"));
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
+        provider.setUserDetailsService(users);
+        provider.setPasswordEncoder(encoder);
+        ProviderManager authenticationManager = new ProviderManager(provider);
+        when(authService.login(any(LoginRequest.class))).thenAnswer(invocation -> {
+            LoginRequest request = invocation.getArgument(0);
+            authenticationManager.authenticate(
+                    new UsernamePasswordAuthenticationToken(request.getUsername(), request.getPassword()));
+            return null;
+        });
+
+        mockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"username\":\"nobody\",\"password\":\"secret\"}"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"));
+    }
+
+    @Test
+    void wrappedOverloadIsServiceUnavailable() throws Exception {
+        when(authService.login(any(LoginRequest.class))).thenThrow(new InternalAuthenticationServiceException("busy",
+                new PasswordHashingRejectedException("busy")));
+
+        mockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"username\":\"nobody\",\"password\":\"secret\"}"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"));
+    }
+
+    @Test
+    void overloadOnAKnownUserIsServiceUnavailable() throws Exception {
+        when(authService.login(any(LoginRequest.class))).thenThrow(new PasswordHashingRejectedException("busy"));
+
+        mockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"username\":\"alice\",\"password\":\"secret\"}"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"));
+    }
+}
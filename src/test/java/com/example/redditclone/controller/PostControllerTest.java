@@ -0,0 +1,24 @@
+package com.example.redditclone.controller;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PostControllerTest {
+
+    @Test
+    void gzipIsAcceptedWhenListedOrCoveredByWildcard() {
+        assertThat(PostController.acceptsGzip("gzip, deflate, br")).isTrue();
+        assertThat(PostController.acceptsGzip("br;q=1.0, GZIP;q=0.5")).isTrue();
+        assertThat(PostController.acceptsGzip("identity, *;q=0.1")).isTrue();
+    }
+
+    @Test
+    void gzipRefusedWithZeroQualityIsNotAccepted() {
+        assertThat(PostController.acceptsGzip("gzip;q=0")).isFalse();
+        assertThat(PostController.acceptsGzip("gzip; q=0.000, deflate")).isFalse();
+        assertThat(PostController.acceptsGzip("*;q=0, br")).isFalse();
+        assertThat(PostController.acceptsGzip("gzip;q=0, *")).isFalse();
+        assertThat(PostController.acceptsGzip(null)).isFalse();
+    }
+}
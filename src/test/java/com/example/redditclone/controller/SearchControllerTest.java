@@ -0,0 +1,28 @@
+package com.example.redditclone.controller;
+
+import com.example.redditclone.exceptions.InvalidSearchQueryException;
+import com.example.redditclone.search.SearchService;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class SearchControllerTest {
+
+    @Test
+    void unparsableQueryIsABadRequest() throws Exception {
+        SearchService searchService = mock(SearchService.class);
+        when(searchService.search(any(), any(), any(), any(), anyInt()))
+                .thenThrow(new InvalidSearchQueryException("Invalid search query: "));
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new SearchController(searchService)).build();
+
+        mockMvc.perform(get("/api/search").param("q", ""))
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.redditclone.live;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.isA;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+class LiveSubscriberTest {
+
+    @Test
+    void sendsQueuedEventsOnTheSender() throws IOException {
+        SseEmitter emitter = mock(SseEmitter.class);
+        LiveSubscriber subscriber = new LiveSubscriber(emitter, 2);
+
+        assertThat(subscriber.offer("update", "{}", Runnable::run)).isTrue();
+        assertThat(subscriber.offer(null, "ping", Runnable::run)).isTrue();
+        assertThat(subscriber.offer("update", "{}", Runnable::run)).isTrue();
+
+        verify(emitter, times(3)).send(any(SseEmitter.SseEventBuilder.class));
+        verify(emitter, never()).complete();
+    }
+
+    @Test
+    void slowSubscriberIsDroppedWhenItsQueueOverflows() {
+        SseEmitter emitter = mock(SseEmitter.class);
+        LiveSubscriber subscriber = new LiveSubscriber(emitter, 2);
+        List<Runnable> neverRun = new ArrayList<>();
+
+        assertThat(subscriber.offer("update", "{}", neverRun::add)).isTrue();
+        assertThat(subscriber.offer("update", "{}", neverRun::add)).isTrue();
+        assertThat(subscriber.offer("update", "{}", neverRun::add)).isFalse();
+        assertThat(subscriber.offer("update", "{}", neverRun::add)).isFalse();
+
+        verify(emitter).complete();
+        assertThat(neverRun).hasSize(1);
+    }
+
+    @Test
+    void failedSendClosesTheConnection() throws IOException {
+        SseEmitter emitter = mock(SseEmitter.class);
+        IOException broken = new IOException("broken pipe");
+        doThrow(broken).when(emitter).send(any(SseEmitter.SseEventBuilder.class));
+        LiveSubscriber subscriber = new LiveSubscriber(emitter, 2);
+
+        subscriber.offer("update", "{}", Runnable::run);
+
+        verify(emitter).completeWithError(broken);
+        assertThat(subscriber.offer("update", "{}", Runnable::run)).isFalse();
+    }
+
+    @Test
+    void blockedWriteIsAbandonedAndFreesTheSender() throws Exception {
+        SseEmitter emitter = mock(SseEmitter.class);
+        CountDownLatch blocked = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            blocked.countDown();
+            try {
+                new CountDownLatch(1).await();
+            } catch (InterruptedException e) {
+                throw new IOException("write interrupted");
+            }
+            return null;
+        }).when(emitter).send(any(SseEmitter.SseEventBuilder.class));
+        LiveSubscriber subscriber = new LiveSubscriber(emitter, 2);
+        ExecutorService sender = Executors.newSingleThreadExecutor();
+        try {
+            subscriber.offer("update", "{}", sender);
+            assertThat(blocked.await(5, TimeUnit.SECONDS)).isTrue();
+
+            assertThat(subscriber.abandonIfStalled(System.nanoTime(), TimeUnit.HOURS.toNanos(1))).isFalse();
+            assertThat(subscriber.abandonIfStalled(System.nanoTime(), 0)).isTrue();
+
+            verify(emitter, timeout(5000)).completeWithError(isA(IOException.class));
+            assertThat(subscriber.offer("update", "{}", sender)).isFalse();
+            // the thread is free again and carries no stale interrupt
+            assertThat(sender.submit(() -> Thread.currentThread().isInterrupted()).get(5, TimeUnit.SECONDS)).isFalse();
+        } finally {
+            sender.shutdownNow();
+        }
+    }
+
+    @Test
+    void writeThatReturnsAfterTheTimeoutCompletesTheEmitter() throws Exception {
+        SseEmitter emitter = mock(SseEmitter.class);
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            blocked.countDown();
+            // ignores the interrupt, like a write that only returns once the socket drains
+            while (true) {
+                try {
+                    release.await();
+                    return null;
+                } catch (InterruptedException ignored) {
+                    // keep waiting
+                }
+            }
+        }).when(emitter).send(any(SseEmitter.SseEventBuilder.class));
+        LiveSubscriber subscriber = new LiveSubscriber(emitter, 2);
+        ExecutorService sender = Executors.newSingleThreadExecutor();
+        try {
+            subscriber.offer("update", "{}", sender);
+            assertThat(blocked.await(5, TimeUnit.SECONDS)).isTrue();
+            assertThat(subscriber.abandonIfStalled(System.nanoTime(), 0)).isTrue();
+            release.countDown();
+
+            verify(emitter, timeout(5000)).completeWithError(isA(TimeoutException.class));
+        } finally {
+            sender.shutdownNow();
+        }
+    }
+}
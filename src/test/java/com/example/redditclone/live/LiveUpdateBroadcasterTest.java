@@ -0,0 +1,79 @@
+package com.example.redditclone.live;
+
+import com.example.redditclone.dto.CommentsDto;
+import com.example.redditclone.dto.LiveUpdate;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+
+class LiveUpdateBroadcasterTest {
+
+    private ObjectMapper objectMapper;
+    private SimpleMeterRegistry meterRegistry;
+    private LiveUpdateBroadcaster broadcaster;
+
+    @BeforeEach
+    void setUp() {
+        objectMapper = spy(new ObjectMapper().findAndRegisterModules());
+        meterRegistry = new SimpleMeterRegistry();
+        broadcaster = new LiveUpdateBroadcaster(objectMapper, meterRegistry, Duration.ofMinutes(1), Duration.ofSeconds(5), 16, 2, 1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        broadcaster.destroy();
+    }
+
+    @Test
+    void burstOfChangesIsSerializedOnceWithTheSummedDelta() throws Exception {
+        broadcaster.subscribePost(1L);
+        broadcaster.subscribeSubreddit(10L);
+
+        broadcaster.voteChanged(1L, 10L, 1);
+        broadcaster.voteChanged(1L, 10L, 1);
+        broadcaster.voteChanged(1L, 10L, -1);
+        broadcaster.voteChanged(1L, 10L, 1);
+        for (long id = 1; id <= 3; id++) {
+            broadcaster.commentAdded(10L, new CommentsDto(id, 1L, Instant.EPOCH, "text", "user", null));
+        }
+        broadcaster.publish();
+
+        ArgumentCaptor<Object> update = ArgumentCaptor.forClass(Object.class);
+        verify(objectMapper).writeValueAsString(update.capture());
+        LiveUpdate sent = (LiveUpdate) update.getValue();
+        assertThat(sent.getVoteDelta()).isEqualTo(2);
+        assertThat(sent.getNewComments()).isEqualTo(3);
+        assertThat(sent.getComments()).hasSize(2);
+    }
+
+    @Test
+    void changesWithoutSubscribersAreNotCollected() throws Exception {
+        broadcaster.subscribePost(2L);
+
+        broadcaster.voteChanged(1L, 10L, 1);
+        broadcaster.publish();
+
+        verify(objectMapper, never()).writeValueAsString(any());
+    }
+
+    @Test
+    void subscriberGaugeCountsOpenConnections() {
+        broadcaster.subscribePost(1L);
+        broadcaster.subscribePost(1L);
+        broadcaster.subscribeSubreddit(10L);
+
+        assertThat(meterRegistry.get("reddit.live.subscribers").gauge().value()).isEqualTo(3);
+    }
+}
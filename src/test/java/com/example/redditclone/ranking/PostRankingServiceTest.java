@@ -0,0 +1,195 @@
+package com.example.redditclone.ranking;
+
+import com.example.redditclone.exceptions.InvalidCursorException;
+import com.example.redditclone.model.Post;
+import com.example.redditclone.model.Subreddit;
+import com.example.redditclone.repository.PostRepository;
+import com.example.redditclone.service.VoteCountAggregator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PostRankingServiceTest {
+
+    private static final Instant NOW = Instant.now();
+
+    private PostRepository postRepository;
+    private VoteCountAggregator voteCountAggregator;
+    private PostRankingService rankings;
+
+    @BeforeEach
+    void setUp() {
+        postRepository = mock(PostRepository.class);
+        voteCountAggregator = mock(VoteCountAggregator.class);
+        when(voteCountAggregator.currentCount(anyLong(), any(), any()))
+                .thenAnswer(invocation -> invocation.getArgument(1));
+        rankings = new PostRankingService(postRepository, voteCountAggregator, 1000, 1000);
+    }
+
+    @Test
+    void topOrdersByVotesAndBreaksTiesByNewestId() {
+        load(row(1, 10, NOW.minusSeconds(60), 5),
+                row(2, 10, NOW.minusSeconds(60), 9),
+                row(3, 10, NOW.minusSeconds(60), 5));
+
+        assertThat(ids(rankings.page(null, FeedSort.TOP, TopWindow.ALL, null, 10))).containsExactly(2L, 3L, 1L);
+    }
+
+    @Test
+    void hotFavoursNewerPostsWithSimilarScores() {
+        load(row(1, 10, NOW.minus(Duration.ofDays(2)), 10),
+                row(2, 10, NOW.minusSeconds(60), 10));
+
+        assertThat(ids(rankings.page(null, FeedSort.HOT, TopWindow.ALL, null, 10))).containsExactly(2L, 1L);
+    }
+
+    @Test
+    void votesReorderThePostInEveryScope() {
+        load(row(1, 10, NOW.minusSeconds(60), 1),
+                row(2, 10, NOW.minusSeconds(60), 2));
+
+        rankings.onVote(1L, 5);
+
+        assertThat(ids(rankings.page(null, FeedSort.TOP, TopWindow.ALL, null, 10))).containsExactly(1L, 2L);
+        assertThat(ids(rankings.page(10L, FeedSort.TOP, TopWindow.DAY, null, 10))).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void pagesContinueAfterTheCursorKey() {
+        load(row(1, 10, NOW, 3), row(2, 10, NOW, 2), row(3, 10, NOW, 1));
+
+        List<RankKey> first = rankings.page(null, FeedSort.TOP, TopWindow.ALL, null, 2);
+        RankKey cursor = RankKey.decode(first.get(1).encode());
+
+        assertThat(ids(first)).containsExactly(1L, 2L);
+        assertThat(ids(rankings.page(null, FeedSort.TOP, TopWindow.ALL, cursor, 2))).containsExactly(3L);
+    }
+
+    @Test
+    void subredditScopesOnlyHoldTheirOwnPosts() {
+        load(row(1, 10, NOW, 1), row(2, 20, NOW, 1));
+
+        assertThat(ids(rankings.page(20L, FeedSort.HOT, TopWindow.ALL, null, 10))).containsExactly(2L);
+        assertThat(rankings.page(30L, FeedSort.HOT, TopWindow.ALL, null, 10)).isEmpty();
+    }
+
+    @Test
+    void windowsOnlyHoldPostsCreatedInsideThem() {
+        load(row(1, 10, NOW.minus(Duration.ofDays(3)), 100),
+                row(2, 10, NOW.minus(Duration.ofDays(30)), 50),
+                row(3, 10, NOW.minusSeconds(60), 1));
+
+        assertThat(ids(rankings.page(null, FeedSort.TOP, TopWindow.DAY, null, 10))).containsExactly(3L);
+        assertThat(ids(rankings.page(null, FeedSort.TOP, TopWindow.WEEK, null, 10))).containsExactly(1L, 3L);
+        assertThat(ids(rankings.page(null, FeedSort.TOP, TopWindow.ALL, null, 10))).containsExactly(1L, 2L, 3L);
+    }
+
+    @Test
+    void pruningDropsPostsThatAgedOutOfTheWindow() throws InterruptedException {
+        load();
+        rankings.onPostCreated(post(1, 10, Instant.now().minus(TopWindow.DAY.getLength()).plusMillis(50)));
+        assertThat(ids(rankings.page(null, FeedSort.TOP, TopWindow.DAY, null, 10))).containsExactly(1L);
+
+        Thread.sleep(100);
+        rankings.pruneWindows();
+
+        assertThat(rankings.page(null, FeedSort.TOP, TopWindow.DAY, null, 10)).isEmpty();
+        assertThat(rankings.page(10L, FeedSort.TOP, TopWindow.DAY, null, 10)).isEmpty();
+        assertThat(ids(rankings.page(null, FeedSort.TOP, TopWindow.WEEK, null, 10))).containsExactly(1L);
+    }
+
+    @Test
+    void pagesPastTheDepthContinueFromTheDatabase() {
+        rankings = new PostRankingService(postRepository, voteCountAggregator, 2, 10);
+        load(row(1, 10, NOW, 4), row(2, 10, NOW, 3), row(3, 10, NOW, 2), row(4, 10, NOW, 1));
+        when(postRepository.findTopRankingRows(isNull(), isNull(), eq(3L), eq(2L), any()))
+                .thenReturn(List.of(row(3, 10, NOW, 2), row(4, 10, NOW, 1)));
+
+        assertThat(ids(rankings.page(null, FeedSort.TOP, TopWindow.ALL, null, 3))).containsExactly(1L, 2L, 3L);
+    }
+
+    @Test
+    void voteLiftsAPostBackIntoATruncatedList() {
+        rankings = new PostRankingService(postRepository, voteCountAggregator, 2, 10);
+        load(row(1, 10, NOW, 4), row(2, 10, NOW, 3), row(3, 10, NOW, 2));
+        // the current count read back already includes the vote
+        when(postRepository.findRankingRow(3L)).thenReturn(Optional.of(row(3, 10, NOW, 5)));
+
+        rankings.onVote(3L, 3);
+
+        assertThat(ids(rankings.page(null, FeedSort.TOP, TopWindow.ALL, null, 2))).containsExactly(3L, 1L);
+        assertThat(ids(rankings.page(10L, FeedSort.TOP, TopWindow.ALL, null, 2))).containsExactly(3L, 1L);
+    }
+
+    @Test
+    void hotPagesPastTheDepthAreScoredFromTheDatabase() {
+        rankings = new PostRankingService(postRepository, voteCountAggregator, 1, 10);
+        PostRankingRow newer = row(1, 10, NOW.minusSeconds(60), 0);
+        PostRankingRow older = row(2, 10, NOW.minus(Duration.ofDays(1)), 0);
+        load(newer, older);
+        when(postRepository.findRankingRowsCreatedBefore(isNull(), any(), anyLong(), any()))
+                .thenReturn(List.of(newer, older));
+
+        assertThat(ids(rankings.page(null, FeedSort.HOT, TopWindow.ALL, null, 5))).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void malformedCursorIsRejected() {
+        assertThatThrownBy(() -> RankKey.decode("not a cursor")).isInstanceOf(InvalidCursorException.class);
+    }
+
+    private void load(PostRankingRow... rows) {
+        when(postRepository.findRankingRowsAfter(eq(0L), any())).thenReturn(List.of(rows));
+        rankings.rebuild();
+    }
+
+    private static List<Long> ids(List<RankKey> keys) {
+        return keys.stream().map(RankKey::postId).toList();
+    }
+
+    private static Post post(long postId, long subredditId, Instant createdDate) {
+        return Post.builder()
+                .postId(postId)
+                .subreddit(Subreddit.builder().id(subredditId).build())
+                .createdDate(createdDate)
+                .voteCount(0)
+                .build();
+    }
+
+    private static PostRankingRow row(long postId, long subredditId, Instant createdDate, int voteCount) {
+        return new PostRankingRow() {
+            public Long getPostId() {
+                return postId;
+            }
+
+            public Long getSubredditId() {
+                return subredditId;
+            }
+
+            public Instant getCreatedDate() {
+                return createdDate;
+            }
+
+            public Integer getVoteCount() {
+                return voteCount;
+            }
+
+            public Long getRevision() {
+                return 0L;
+            }
+        };
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.redditclone.search;
+
+import com.example.redditclone.exceptions.InvalidSearchQueryException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SearchIndexTest {
+
+    @TempDir
+    Path indexDir;
+
+    private SearchIndex index;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        index = new SearchIndex(indexDir, Duration.ofMillis(100));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        index.destroy();
+    }
+
+    @Test
+    void malformedSyntaxIsSearchedAsPlainWords() {
+        assertThat(index.search("title:(unclosed", null, null, null, 10)).isEmpty();
+    }
+
+    @Test
+    void queryThatCannotBeParsedIsRejected() {
+        assertThatThrownBy(() -> index.search("", null, null, null, 10))
+                .isInstanceOf(InvalidSearchQueryException.class);
+    }
+}
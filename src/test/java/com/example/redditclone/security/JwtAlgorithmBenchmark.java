@@ -0,0 +1,71 @@
+package com.example.redditclone.security;
+
+import com.example.redditclone.config.JwtKeyConfig;
+import com.nimbusds.jose.jwk.Curve;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.gen.ECKeyGenerator;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.security.oauth2.jose.jws.SignatureAlgorithm;
+import org.springframework.security.oauth2.jwt.JwsHeader;
+import org.springframework.security.oauth2.jwt.JwtClaimsSet;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtEncoder;
+import org.springframework.security.oauth2.jwt.JwtEncoderParameters;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Compares signing and verification throughput of the supported JWT algorithms.
+ * Run with: mvn test -Dtest=JwtAlgorithmBenchmark -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class JwtAlgorithmBenchmark {
+
+    private static final int WARMUP = 2_000;
+    private static final int ITERATIONS = 10_000;
+
+    @Test
+    void compareAlgorithms() throws Exception {
+        Map<SignatureAlgorithm, JWK> keys = Map.of(
+                SignatureAlgorithm.RS256, new RSAKeyGenerator(2048).generate(),
+                SignatureAlgorithm.ES256, new ECKeyGenerator(Curve.P_256).generate());
+
+        System.out.printf("%-6s %14s %14s%n", "alg", "sign ops/s", "verify ops/s");
+        for (SignatureAlgorithm algorithm : new SignatureAlgorithm[]{SignatureAlgorithm.RS256, SignatureAlgorithm.ES256}) {
+            JWK key = keys.get(algorithm);
+            JwtEncoder encoder = JwtKeyConfig.encoder(key);
+            JwtDecoder decoder = JwtKeyConfig.decoder(key, algorithm);
+            JwtEncoderParameters parameters = JwtEncoderParameters.from(JwsHeader.with(algorithm).build(),
+                    JwtClaimsSet.builder()
+                            .issuer("self")
+                            .issuedAt(Instant.now())
+                            .expiresAt(Instant.now().plusSeconds(900))
+                            .subject("benchmark")
+                            .claim("scope", "ROLE_USER")
+                            .build());
+
+            String token = null;
+            for (int i = 0; i < WARMUP; i++) {
+                token = encoder.encode(parameters).getTokenValue();
+                decoder.decode(token);
+            }
+
+            long start = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) {
+                token = encoder.encode(parameters).getTokenValue();
+            }
+            double signOps = ITERATIONS / ((System.nanoTime() - start) / 1e9);
+
+            start = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) {
+                decoder.decode(token);
+            }
+            double verifyOps = ITERATIONS / ((System.nanoTime() - start) / 1e9);
+
+            System.out.printf("%-6s %14.0f %14.0f%n", algorithm.getName(), signOps, verifyOps);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.redditclone.service;
+
+import com.example.redditclone.dto.VoteImport;
+import com.example.redditclone.model.VoteType;
+import com.example.redditclone.ranking.PostRankingService;
+import com.example.redditclone.repository.CommentRepository;
+import com.example.redditclone.repository.PostRepository;
+import com.example.redditclone.repository.UserRepository;
+import com.example.redditclone.search.SearchService;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.ResultSet;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BulkIngestionServiceTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private VoteCountAggregator voteCountAggregator;
+    private BulkIngestionService bulkIngestionService;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        voteCountAggregator = mock(VoteCountAggregator.class);
+        bulkIngestionService = new BulkIngestionService(mock(EntityManager.class), jdbcTemplate,
+                mock(CommentRepository.class), mock(PostRepository.class), mock(UserRepository.class),
+                voteCountAggregator, mock(PostRankingService.class), mock(SearchService.class), 100);
+    }
+
+    // answers the existing-vote lookup with the given (postId, userId, voteType) rows
+    private void existingVotes(Object[]... rows) {
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            for (Object[] row : rows) {
+                ResultSet rs = mock(ResultSet.class);
+                when(rs.getLong(1)).thenReturn((Long) row[0]);
+                when(rs.getLong(2)).thenReturn((Long) row[1]);
+                when(rs.getInt(3)).thenReturn(((VoteType) row[2]).ordinal());
+                handler.processRow(rs);
+            }
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class), (Object) any());
+    }
+
+    @Test
+    void deltasCountNewAndFlippedVotesOnly() {
+        existingVotes(new Object[]{1L, 10L, VoteType.UPVOTE}, new Object[]{1L, 11L, VoteType.DOWNVOTE});
+
+        int changed = bulkIngestionService.importVotes(List.of(
+                new VoteImport(1L, 10L, VoteType.UPVOTE),
+                new VoteImport(1L, 11L, VoteType.UPVOTE),
+                new VoteImport(1L, 12L, VoteType.DOWNVOTE),
+                new VoteImport(2L, 10L, VoteType.UPVOTE)));
+
+        assertThat(changed).isEqualTo(3);
+        verify(voteCountAggregator).add(1L, 1L);
+        verify(voteCountAggregator).add(2L, 1L);
+    }
+
+    @Test
+    void lastVoteWinsWithinAnImport() {
+        existingVotes();
+
+        bulkIngestionService.importVotes(List.of(
+                new VoteImport(1L, 10L, VoteType.UPVOTE),
+                new VoteImport(1L, 10L, VoteType.DOWNVOTE)));
+
+        verify(voteCountAggregator).add(1L, -1L);
+    }
+
+    @Test
+    void unchangedVotesAddNothing() {
+        existingVotes(new Object[]{1L, 10L, VoteType.DOWNVOTE});
+
+        int changed = bulkIngestionService.importVotes(List.of(new VoteImport(1L, 10L, VoteType.DOWNVOTE)));
+
+        assertThat(changed).isZero();
+        verify(voteCountAggregator, never()).add(anyLong(), anyLong());
+    }
+
+    @Test
+    void existingVotesAreReadForUpdate() {
+        existingVotes();
+
+        bulkIngestionService.importVotes(List.of(new VoteImport(1L, 10L, VoteType.UPVOTE)));
+
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        verify(jdbcTemplate).query(sql.capture(), any(RowCallbackHandler.class), eq(1L), eq(10L));
+        assertThat(sql.getValue()).endsWith("for update");
+    }
+}
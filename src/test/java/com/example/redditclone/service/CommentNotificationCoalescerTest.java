@@ -0,0 +1,102 @@
+package com.example.redditclone.service;
+
+import com.example.redditclone.model.NotificationEmail;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CommentNotificationCoalescerTest {
+
+    private MailService mailService;
+    private MailContentBuilder mailContentBuilder;
+
+    @BeforeEach
+    void setUp() {
+        mailService = mock(MailService.class);
+        mailContentBuilder = mock(MailContentBuilder.class);
+        when(mailContentBuilder.build(anyString())).thenReturn("single");
+        when(mailContentBuilder.buildDigest(anyString(), anyList(), anyInt())).thenReturn("digest");
+    }
+
+    private CommentNotificationCoalescer coalescer(Duration window, int maxDigestSize) {
+        return new CommentNotificationCoalescer(mailService, mailContentBuilder, window, maxDigestSize);
+    }
+
+    @Test
+    void mailsTheFirstCommentAndBuffersTheRest() {
+        CommentNotificationCoalescer coalescer = coalescer(Duration.ofHours(1), 10);
+
+        coalescer.commentAdded("op@example.com", "op", "alice", "First post");
+        coalescer.commentAdded("op@example.com", "op", "bob", "First post");
+        coalescer.commentAdded("op@example.com", "op", "carol", "First post");
+        coalescer.flushDue();
+
+        ArgumentCaptor<NotificationEmail> mail = ArgumentCaptor.forClass(NotificationEmail.class);
+        verify(mailService).sendMail(mail.capture());
+        assertThat(mail.getValue().getRecipient()).isEqualTo("op@example.com");
+        assertThat(mail.getValue().getBody()).isEqualTo("single");
+        verify(mailContentBuilder, never()).buildDigest(anyString(), anyList(), anyInt());
+    }
+
+    @Test
+    void sendsOneDigestWhenTheWindowCloses() {
+        CommentNotificationCoalescer coalescer = coalescer(Duration.ZERO, 1);
+
+        coalescer.commentAdded("op@example.com", "op", "alice", "First post");
+        coalescer.commentAdded("op@example.com", "op", "bob", "First post");
+        coalescer.commentAdded("op@example.com", "op", "carol", "First post");
+        coalescer.flushDue();
+
+        ArgumentCaptor<NotificationEmail> mail = ArgumentCaptor.forClass(NotificationEmail.class);
+        verify(mailService, times(2)).sendMail(mail.capture());
+        assertThat(mail.getAllValues().get(1).getSubject()).isEqualTo("2 new comments on your posts");
+        verify(mailContentBuilder).buildDigest(eq("op"),
+                eq(List.of("bob commented on your post \"First post\"")), eq(2));
+    }
+
+    @Test
+    void quietWindowClosesWithoutADigest() {
+        CommentNotificationCoalescer coalescer = coalescer(Duration.ZERO, 10);
+
+        coalescer.commentAdded("op@example.com", "op", "alice", "First post");
+        coalescer.flushDue();
+        coalescer.commentAdded("op@example.com", "op", "bob", "First post");
+
+        verify(mailService, times(2)).sendMail(any());
+        verify(mailContentBuilder, never()).buildDigest(anyString(), anyList(), anyInt());
+    }
+
+    @Test
+    void rolledBackCommentReopensTheWindow() {
+        CommentNotificationCoalescer coalescer = coalescer(Duration.ofHours(1), 10);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            coalescer.commentAdded("op@example.com", "op", "alice", "First post");
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        coalescer.commentAdded("op@example.com", "op", "bob", "First post");
+
+        verify(mailService, times(2)).sendMail(any());
+    }
+}
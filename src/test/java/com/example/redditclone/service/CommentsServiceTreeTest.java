@@ -0,0 +1,80 @@
+package com.example.redditclone.service;
+
+import com.example.redditclone.dto.CommentNode;
+import com.example.redditclone.exceptions.CommentNotFoundException;
+import com.example.redditclone.live.LiveUpdateBroadcaster;
+import com.example.redditclone.model.Comment;
+import com.example.redditclone.repository.CommentRepository;
+import com.example.redditclone.repository.PostRepository;
+import com.example.redditclone.repository.UserRepository;
+import com.example.redditclone.search.SearchService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CommentsServiceTreeTest {
+
+    private CommentRepository commentRepository;
+    private CommentsService commentsService;
+
+    @BeforeEach
+    void setUp() {
+        commentRepository = mock(CommentRepository.class);
+        commentsService = new CommentsService(commentRepository, mock(UserRepository.class), mock(PostRepository.class),
+                mock(AuthService.class), mock(PostService.class), mock(CommentNotificationCoalescer.class),
+                mock(SubredditCatalog.class), mock(SearchService.class), mock(LiveUpdateBroadcaster.class));
+    }
+
+    private static CommentNode node(long id, Long parentId, int depth) {
+        return new CommentNode(id, parentId, Instant.EPOCH, "comment " + id, "user", depth, 0);
+    }
+
+    @Test
+    void rootTreeQueriesWithoutAPathPredicate() {
+        when(commentRepository.findTree(7L, 4)).thenReturn(List.of(
+                node(1, null, 0), node(2, 1L, 1), node(4, 2L, 2), node(3, 1L, 1), node(5, null, 0)));
+
+        List<CommentNode> roots = commentsService.getCommentTree(7L, null, 5);
+
+        verify(commentRepository, never()).findSubtree(anyLong(), anyString(), anyInt());
+        assertThat(roots).extracting(CommentNode::getId).containsExactly(1L, 5L);
+        assertThat(roots.get(0).getReplies()).extracting(CommentNode::getId).containsExactly(2L, 3L);
+        assertThat(roots.get(0).getReplies().get(0).getReplies()).extracting(CommentNode::getId).containsExactly(4L);
+    }
+
+    @Test
+    void subtreeUsesTheParentPathAsPrefix() {
+        Comment parent = Comment.builder().id(2L).parentId(1L).depth(1)
+                .path(CommentsService.pathSegment(1L) + CommentsService.pathSegment(2L)).build();
+        when(commentRepository.findById(2L)).thenReturn(Optional.of(parent));
+        when(commentRepository.findSubtree(7L, parent.getPath(), 2)).thenReturn(List.of(
+                node(2, 1L, 1), node(4, 2L, 2)));
+
+        List<CommentNode> roots = commentsService.getCommentTree(7L, 2L, 2);
+
+        verify(commentRepository, never()).findTree(anyLong(), anyInt());
+        assertThat(roots).extracting(CommentNode::getId).containsExactly(2L);
+        assertThat(roots.get(0).getReplies()).extracting(CommentNode::getId).containsExactly(4L);
+    }
+
+    @Test
+    void unknownParentIsNotFound() {
+        when(commentRepository.findById(9L)).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> commentsService.getCommentTree(7L, 9L, 5))
+                .isInstanceOf(CommentNotFoundException.class);
+    }
+}
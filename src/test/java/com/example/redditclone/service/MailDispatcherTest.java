@@ -0,0 +1,125 @@
+package com.example.redditclone.service;
+
+import com.example.redditclone.model.OutboxMail;
+import com.example.redditclone.model.OutboxStatus;
+import com.example.redditclone.repository.OutboxMailRepository;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.mockito.ArgumentCaptor;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MailDispatcherTest {
+
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    private final OutboxMailRepository outboxMailRepository = mock(OutboxMailRepository.class);
+
+    @Test
+    void sendsTheBatchAndMarksItSent() throws Exception {
+        List<OutboxMail> batch = List.of(mail("first@example.com", 0), mail("second@example.com", 0));
+        when(outboxMailRepository.findDue(eq(OutboxStatus.PENDING), any(), any())).thenReturn(batch);
+
+        dispatcher(greenMail.getSmtp().getPort()).dispatch();
+
+        MimeMessage[] received = greenMail.getReceivedMessages();
+        assertThat(received).hasSize(2);
+        assertThat(received[0].getSubject()).isEqualTo("Subject");
+        assertThat(batch).allSatisfy(mail -> {
+            assertThat(mail.getStatus()).isEqualTo(OutboxStatus.SENT);
+            assertThat(mail.getSentDate()).isNotNull();
+        });
+        verify(outboxMailRepository).saveAll(batch);
+    }
+
+    @Test
+    void unreachableServerSchedulesARetryWithBackoff() {
+        OutboxMail mail = mail("first@example.com", 0);
+        when(outboxMailRepository.findDue(eq(OutboxStatus.PENDING), any(), any())).thenReturn(List.of(mail));
+
+        dispatcher(unusedPort()).dispatch();
+
+        assertThat(mail.getStatus()).isEqualTo(OutboxStatus.PENDING);
+        assertThat(mail.getAttempts()).isEqualTo(1);
+        assertThat(mail.getLastError()).isNotBlank();
+        assertThat(mail.getNextAttemptAt()).isBetween(Instant.now().plusSeconds(25), Instant.now().plusSeconds(31));
+        verify(outboxMailRepository).saveAll(List.of(mail));
+    }
+
+    @Test
+    void lastAttemptDeadLettersTheMail() {
+        OutboxMail mail = mail("first@example.com", 2);
+        when(outboxMailRepository.findDue(eq(OutboxStatus.PENDING), any(), any())).thenReturn(List.of(mail));
+
+        dispatcher(unusedPort()).dispatch();
+
+        assertThat(mail.getStatus()).isEqualTo(OutboxStatus.DEAD);
+        assertThat(mail.getAttempts()).isEqualTo(3);
+    }
+
+    @Test
+    void purgeDeletesOldSentMailsInBatches() {
+        List<Long> full = LongStream.rangeClosed(1, 100).boxed().toList();
+        when(outboxMailRepository.findIdsSentBefore(eq(OutboxStatus.SENT), any(), any()))
+                .thenReturn(full, List.of(101L, 102L));
+
+        Instant before = Instant.now().minus(Duration.ofDays(7));
+        dispatcher(unusedPort()).purgeSent();
+
+        ArgumentCaptor<Instant> cutoff = ArgumentCaptor.forClass(Instant.class);
+        verify(outboxMailRepository, times(2)).findIdsSentBefore(eq(OutboxStatus.SENT), cutoff.capture(), any());
+        assertThat(cutoff.getValue()).isBetween(before, Instant.now().minus(Duration.ofDays(7)));
+        verify(outboxMailRepository).deleteAllByIdInBatch(full);
+        verify(outboxMailRepository).deleteAllByIdInBatch(List.of(101L, 102L));
+    }
+
+    private MailDispatcher dispatcher(int port) {
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(port);
+        return new MailDispatcher(outboxMailRepository, mailSender,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)), new SimpleMeterRegistry(),
+                100, 3, Duration.ofSeconds(30), Duration.ofHours(1), Duration.ofMinutes(5), Duration.ofDays(7));
+    }
+
+    private static OutboxMail mail(String recipient, int attempts) {
+        return OutboxMail.builder()
+                .recipient(recipient)
+                .subject("Subject")
+                .body("<p>Body</p>")
+                .status(OutboxStatus.PENDING)
+                .attempts(attempts)
+                .nextAttemptAt(Instant.now())
+                .createdDate(Instant.now())
+                .build();
+    }
+
+    private static int unusedPort() {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.redditclone.service;
+
+import com.example.redditclone.dto.PostResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PostResponseCacheTest {
+
+    private PostService postService;
+    private ObjectMapper objectMapper;
+
+    @BeforeEach
+    void setUp() {
+        postService = mock(PostService.class);
+        objectMapper = new ObjectMapper();
+    }
+
+    private PostResponseCache cache(int gzipMinBytes) {
+        return new PostResponseCache(postService, objectMapper, new SimpleMeterRegistry(), 1 << 20,
+                Duration.ofMinutes(1), true, gzipMinBytes);
+    }
+
+    private static PostResponse post(String description, int voteCount) {
+        return PostResponse.builder().id(1L).postName("Title").description(description).voteCount(voteCount).build();
+    }
+
+    @Test
+    void rendersOncePerTag() throws IOException {
+        when(postService.getPost(1L)).thenReturn(post("text", 5));
+        PostResponseCache cache = cache(512);
+
+        PostResponseCache.Body first = cache.get(1L, "W/\"3.100\"");
+        PostResponseCache.Body second = cache.get(1L, "W/\"3.100\"");
+
+        verify(postService, times(1)).getPost(1L);
+        assertThat(second).isSameAs(first);
+        assertThat(first.eTag()).isEqualTo("W/\"3.100\"");
+        assertThat(objectMapper.readValue(first.json(), PostResponse.class).getVoteCount()).isEqualTo(5);
+    }
+
+    @Test
+    void newTagReplacesTheCachedBody() throws IOException {
+        when(postService.getPost(1L)).thenReturn(post("text", 5), post("text", 9));
+        PostResponseCache cache = cache(512);
+
+        cache.get(1L, "W/\"3.100\"");
+        PostResponseCache.Body updated = cache.get(1L, "W/\"4.100\"");
+        PostResponseCache.Body again = cache.get(1L, "W/\"4.100\"");
+
+        verify(postService, times(2)).getPost(1L);
+        assertThat(updated.eTag()).isEqualTo("W/\"4.100\"");
+        assertThat(objectMapper.readValue(updated.json(), PostResponse.class).getVoteCount()).isEqualTo(9);
+        assertThat(again).isSameAs(updated);
+    }
+
+    @Test
+    void olderRenderDoesNotReplaceANewerBody() throws IOException {
+        when(postService.getPost(1L)).thenReturn(post("text", 9), post("text", 5));
+        PostResponseCache cache = cache(512);
+
+        PostResponseCache.Body newer = cache.get(1L, "W/\"4.100\"");
+        PostResponseCache.Body stale = cache.get(1L, "W/\"3.100\"");
+
+        assertThat(stale).isSameAs(newer);
+        assertThat(cache.get(1L, "W/\"4.100\"")).isSameAs(newer);
+        verify(postService, times(2)).getPost(1L);
+    }
+
+    @Test
+    void gzipsOnlyBodiesAboveTheThreshold() throws IOException {
+        when(postService.getPost(1L)).thenReturn(post("short", 0));
+        when(postService.getPost(2L)).thenReturn(post("long ".repeat(200), 0));
+        PostResponseCache cache = cache(512);
+
+        PostResponseCache.Body small = cache.get(1L, "W/\"1.1\"");
+        PostResponseCache.Body large = cache.get(2L, "W/\"1.1\"");
+
+        assertThat(small.gzip()).isNull();
+        assertThat(large.gzip()).isNotNull().hasSizeLessThan(large.json().length);
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(large.gzip()))) {
+            assertThat(in.readAllBytes()).isEqualTo(large.json());
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.redditclone.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class VoteCountAggregatorTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private PlatformTransactionManager transactionManager;
+    private VoteCountAggregator aggregator;
+    private final List<Object[]> written = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        doAnswer(invocation -> {
+            written.addAll(invocation.getArgument(1));
+            return new int[0];
+        }).when(jdbcTemplate).batchUpdate(anyString(), anyList());
+        transactionManager = mock(PlatformTransactionManager.class);
+        aggregator = new VoteCountAggregator(jdbcTemplate, new TransactionTemplate(transactionManager));
+    }
+
+    // answers the revision lock with the given post revision
+    private void revision(long postId, long revision) {
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            ResultSet rs = mock(ResultSet.class);
+            when(rs.getLong(1)).thenReturn(postId);
+            when(rs.getLong(2)).thenReturn(revision);
+            handler.processRow(rs);
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class), (Object) any());
+    }
+
+    @Test
+    void pendingDeltasAddUpUntilFlushed() {
+        aggregator.add(1L, 1);
+        aggregator.add(1L, 1);
+        aggregator.add(1L, -2);
+        aggregator.add(2L, 2);
+
+        assertThat(aggregator.pendingDelta(1L, 0)).isZero();
+        assertThat(aggregator.currentCount(2L, 5, 0L)).isEqualTo(7);
+
+        aggregator.flush();
+
+        // a post whose deltas cancel out is not written
+        assertThat(written).hasSize(1);
+        assertThat(written.get(0)).containsExactly(2L, 2L);
+        assertThat(aggregator.pendingDelta(2L, 0)).isZero();
+    }
+
+    @Test
+    void failedFlushKeepsEachDeltaExactlyOnce() {
+        doThrow(new DataAccessResourceFailureException("down")).when(jdbcTemplate).batchUpdate(anyString(), anyList());
+        aggregator.add(1L, 3);
+
+        aggregator.flush();
+
+        assertThat(aggregator.pendingDelta(1L, 0)).isEqualTo(3);
+    }
+
+    @Test
+    void emptyFlushDoesNotTouchTheDatabase() {
+        aggregator.flush();
+
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+    }
+
+    @Test
+    void concurrentVotesDuringFlushesAreWrittenOnce() throws Exception {
+        int threads = 8;
+        int votesPerThread = 10_000;
+        ExecutorService voters = Executors.newFixedThreadPool(threads);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            voters.execute(() -> {
+                for (int i = 0; i < votesPerThread; i++) {
+                    aggregator.add((long) (i % 10), 1);
+                }
+                done.countDown();
+            });
+        }
+        while (!done.await(1, TimeUnit.MILLISECONDS)) {
+            aggregator.flush();
+        }
+        aggregator.flush();
+        voters.shutdown();
+
+        AtomicLong total = new AtomicLong();
+        written.forEach(row -> total.addAndGet((Long) row[0]));
+        assertThat(total.get()).isEqualTo((long) threads * votesPerThread);
+    }
+
+    @Test
+    void flushedDeltaCountsOnlyForRowsReadBeforeTheFlush() {
+        revision(1L, 4);
+        aggregator.add(1L, 3);
+        List<Long> atCommit = new ArrayList<>();
+        doAnswer(invocation -> {
+            atCommit.add(aggregator.pendingDelta(1L, 4));
+            atCommit.add(aggregator.pendingDelta(1L, 5));
+            return null;
+        }).when(transactionManager).commit(any());
+
+        aggregator.flush();
+
+        // the row read at revision 4 lacks the delta, the one at 5 already has it
+        assertThat(atCommit).containsExactly(3L, 0L);
+        assertThat(aggregator.pendingDelta(1L, 4)).isEqualTo(3);
+        assertThat(aggregator.pendingDelta(1L, 5)).isZero();
+        assertThat(aggregator.currentCount(1L, 13, 5L)).isEqualTo(13);
+    }
+
+    @Test
+    void laterFlushesStackByRevision() {
+        revision(1L, 4);
+        aggregator.add(1L, 3);
+        aggregator.flush();
+        revision(1L, 6);
+        aggregator.add(1L, 2);
+        aggregator.flush();
+
+        assertThat(aggregator.pendingDelta(1L, 4)).isEqualTo(5);
+        assertThat(aggregator.pendingDelta(1L, 6)).isEqualTo(2);
+        assertThat(aggregator.pendingDelta(1L, 7)).isZero();
+    }
+}